@@ -0,0 +1,77 @@
+package com.northwind.benchmark;
+
+import com.northwind.dto.CategorySummaryDto;
+import com.northwind.dto.ProductDto;
+import com.northwind.dto.SupplierSummaryDto;
+import com.northwind.entity.Category;
+import com.northwind.entity.Product;
+import com.northwind.entity.Supplier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// ベンチマーク用の決定的なテストデータ
+final class BenchmarkData {
+    
+    static final int CATEGORY_COUNT = 8;
+    static final int SUPPLIER_COUNT = 30;
+    
+    private BenchmarkData() {
+    }
+    
+    static Product product(long id) {
+        SplittableRandom random = new SplittableRandom(id);
+        Category category = Category.builder()
+                .categoryId(id % CATEGORY_COUNT + 1)
+                .name("Category " + (id % CATEGORY_COUNT + 1))
+                .description("Benchmark category")
+                .build();
+        Supplier supplier = Supplier.builder()
+                .supplierId(id % SUPPLIER_COUNT + 1)
+                .companyName("Supplier Company " + (id % SUPPLIER_COUNT + 1))
+                .build();
+        Product product = Product.builder()
+                .productId(id)
+                .name("Product " + id)
+                .code("B" + id)
+                .quantityPerUnit("24 - 12 oz bottles")
+                .unitPrice(BigDecimal.valueOf(random.nextInt(100, 10000), 2))
+                .unitCost(BigDecimal.valueOf(random.nextInt(100, 8000), 2))
+                .unitsInStock(random.nextInt(0, 120))
+                .reorderLevel(random.nextInt(0, 30))
+                .discontinued(random.nextInt(20) == 0)
+                .category(category)
+                .supplier(supplier)
+                .build();
+        product.setVersion(0L);
+        return product;
+    }
+    
+    static ProductDto productDto(long id) {
+        Product product = product(id);
+        return ProductDto.builder()
+                .productId(product.getProductId())
+                .name(product.getName())
+                .code(product.getCode())
+                .quantityPerUnit(product.getQuantityPerUnit())
+                .unitPrice(product.getUnitPrice())
+                .unitCost(product.getUnitCost())
+                .unitsInStock(product.getUnitsInStock())
+                .reorderLevel(product.getReorderLevel())
+                .discontinued(product.getDiscontinued())
+                .deleted(false)
+                .category(new CategorySummaryDto(product.getCategory().getCategoryId(), product.getCategory().getName()))
+                .supplier(new SupplierSummaryDto(product.getSupplier().getSupplierId(), product.getSupplier().getCompanyName()))
+                .build();
+    }
+    
+    static List<ProductDto> productDtos(int count) {
+        List<ProductDto> products = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            products.add(productDto(id));
+        }
+        return products;
+    }
+}
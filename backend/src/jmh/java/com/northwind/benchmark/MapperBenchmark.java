@@ -0,0 +1,79 @@
+package com.northwind.benchmark;
+
+import com.northwind.dto.CategoryDto;
+import com.northwind.dto.ProductDto;
+import com.northwind.entity.Category;
+import com.northwind.entity.Product;
+import com.northwind.service.CategoryMapper;
+import com.northwind.service.ProductMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// MapStruct マッパー（エンティティ <-> DTO）のスループットと割り当て量
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+    
+    private ProductMapper productMapper;
+    private CategoryMapper categoryMapper;
+    
+    private Product product;
+    private ProductDto productUpdate;
+    private Product updateTarget;
+    private Category category;
+    private CategoryDto categoryUpdate;
+    private Category categoryTarget;
+    
+    @Setup
+    public void setUp() {
+        productMapper = Mappers.getMapper(ProductMapper.class);
+        categoryMapper = Mappers.getMapper(CategoryMapper.class);
+        
+        product = BenchmarkData.product(42);
+        updateTarget = BenchmarkData.product(43);
+        // 部分更新（null項目は無視される）
+        productUpdate = ProductDto.builder()
+                .name("Updated name")
+                .unitPrice(new BigDecimal("12.50"))
+                .unitsInStock(7)
+                .build();
+        
+        category = product.getCategory();
+        categoryTarget = BenchmarkData.product(44).getCategory();
+        categoryUpdate = CategoryDto.builder()
+                .description("Updated description")
+                .build();
+    }
+    
+    @Benchmark
+    public ProductDto productToDto() {
+        return productMapper.toDto(product);
+    }
+    
+    @Benchmark
+    public Product productUpdateEntity() {
+        productMapper.updateEntity(productUpdate, updateTarget);
+        return updateTarget;
+    }
+    
+    @Benchmark
+    public CategoryDto categoryToDto() {
+        return categoryMapper.toDto(category);
+    }
+    
+    @Benchmark
+    public Category categoryUpdateEntity() {
+        categoryMapper.updateEntity(categoryUpdate, categoryTarget);
+        return categoryTarget;
+    }
+}
@@ -0,0 +1,105 @@
+package com.northwind.benchmark;
+
+import com.northwind.NorthwindApplication;
+import com.northwind.dto.CursorPageDto;
+import com.northwind.dto.ProductDto;
+import com.northwind.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ProductService の読み取り系メソッド（インメモリH2に CatalogDataGenerator で投入、カタログ件数をパラメータ化）
+// 100万件ではインメモリH2とトライグラム索引が既定のヒープに収まらないため、ヒープを広げてフォークする
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class ProductServiceBenchmark {
+    
+    private static final int PAGE_SIZE = 20;
+    
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+    
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication application = new SpringApplication(NorthwindApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + catalogSize + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.jpa.show-sql=false",
+                "--northwind.seed.mode=generated",
+                "--northwind.seed.products=" + catalogSize,
+                "--logging.level.root=WARN",
+                "--logging.level.com.northwind=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.web=WARN");
+        productService = context.getBean(ProductService.class);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Page<ProductDto> getAllProductsPage() {
+        int pages = Math.max(1, catalogSize / PAGE_SIZE);
+        return productService.getAllProducts(PageRequest.of(ThreadLocalRandom.current().nextInt(pages), PAGE_SIZE));
+    }
+    
+    @Benchmark
+    public CursorPageDto<ProductDto> getProductsAfterFirstPage() {
+        return productService.getProductsAfter(null, PAGE_SIZE, "name", false);
+    }
+    
+    @Benchmark
+    public Optional<ProductDto> getProductById() {
+        return productService.getProductById(ThreadLocalRandom.current().nextLong(1, catalogSize + 1L));
+    }
+    
+    // 未ソートの検索はトライグラム索引、ソート指定ありはJPAのLIKE検索を通る
+    @Benchmark
+    public Page<ProductDto> searchProductsIndexed() {
+        return productService.searchProducts(searchTerm(), PageRequest.of(0, PAGE_SIZE));
+    }
+    
+    @Benchmark
+    public Page<ProductDto> searchProductsSorted() {
+        return productService.searchProducts(searchTerm(), PageRequest.of(0, PAGE_SIZE, Sort.by("name")));
+    }
+    
+    @Benchmark
+    public Page<ProductDto> getLowStockProductsPage() {
+        return productService.getLowStockProducts(PageRequest.of(0, PAGE_SIZE,
+                Sort.by(Sort.Direction.DESC, "stockDeficit", "productId")));
+    }
+    
+    // 生成データの商品コード（G + 8桁）の部分一致
+    private static String searchTerm() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(100, 1000));
+    }
+}
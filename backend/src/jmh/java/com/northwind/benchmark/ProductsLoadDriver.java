@@ -0,0 +1,137 @@
+package com.northwind.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// 起動中のバックエンドに対する閉ループ負荷（クライアントごとに1リクエストずつ送り続ける）
+// 使い方: ./gradlew loadTest -Pclients=1000 -Pseconds=30 -Purl=http://localhost:8080/api/products
+// プラットフォームスレッド / 仮想スレッド（spring.threads.virtual.enabled）それぞれで起動したサーバに対して実行して比較する
+// レイテンシは全クライアント共有の固定長ヒストグラムに記録する（クライアント数・実行時間によらずメモリ一定）
+public final class ProductsLoadDriver {
+    
+    private static final long WARMUP_MILLIS = 5_000;
+    
+    private ProductsLoadDriver() {
+    }
+    
+    // マイクロ秒単位の対数線形ヒストグラム（2のべき乗ごとに16分割、相対誤差は約6%）
+    private static final class LatencyHistogram {
+        
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        // 2^40 µs（約12日）までを記録し、それ以上は最後のバケットに入れる
+        private static final int MAX_EXPONENT = 40;
+        
+        private final LongAdder[] buckets = new LongAdder[(MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS];
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        
+        LatencyHistogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+        
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            buckets[Math.min(index(micros), buckets.length - 1)].increment();
+            count.increment();
+            max.accumulate(nanos);
+        }
+        
+        long count() {
+            return count.sum();
+        }
+        
+        double maxMillis() {
+            return max.get() / 1e6;
+        }
+        
+        // p 分位点を含むバケットの上限値（ミリ秒）
+        double percentileMillis(double p) {
+            long total = count.sum();
+            long rank = Math.max(1, (long) Math.ceil(total * p));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return Math.min(upperBoundMicros(i) / 1e3, maxMillis());
+                }
+            }
+            return maxMillis();
+        }
+        
+        private static int index(long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) micros;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+        
+        private static long upperBoundMicros(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long width = 1L << (exponent - SUB_BUCKET_BITS);
+            return (SUB_BUCKETS + index % SUB_BUCKETS) * width + width - 1;
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+        URI uri = URI.create(args.length > 2 ? args[2] : "http://localhost:8080/api/products");
+        
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).build();
+        AtomicLong errors = new AtomicLong();
+        LatencyHistogram latencies = new LatencyHistogram();
+        long measureFrom = System.currentTimeMillis() + WARMUP_MILLIS;
+        long end = measureFrom + seconds * 1000;
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.currentTimeMillis() < end) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (System.currentTimeMillis() >= measureFrom) {
+                            latencies.record(System.nanoTime() - start);
+                        }
+                    }
+                });
+            }
+        }
+        
+        long requests = latencies.count();
+        if (requests == 0) {
+            System.out.println("No requests completed (errors=" + errors.get() + ")");
+            return;
+        }
+        System.out.printf("clients=%d duration=%ds requests=%d errors=%d%n", clients, seconds, requests, errors.get());
+        System.out.printf("throughput=%.1f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                requests / (double) seconds,
+                latencies.percentileMillis(0.50), latencies.percentileMillis(0.99), latencies.maxMillis());
+    }
+}
@@ -0,0 +1,127 @@
+package com.northwind.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.northwind.config.ProductDictionaryHttpMessageConverter;
+import com.northwind.dto.ProductDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+// Page<ProductDto> のレスポンス書き込み（HttpMessageConverter 経由）
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+    
+    private static final Logger log = LoggerFactory.getLogger(SerializationBenchmark.class);
+    
+    private static final Type PAGE_TYPE = new ParameterizedTypeReference<Page<ProductDto>>() { }.getType();
+    
+    @Param({"20", "1000", "10000"})
+    public int pageSize;
+    
+    @Param({"json", "cbor", "smile", "dict", "dict-cbor"})
+    public String format;
+    
+    private Page<ProductDto> page;
+    private GenericHttpMessageConverter<Object> converter;
+    private MediaType mediaType;
+    private BufferedOutputMessage output;
+    
+    @Setup
+    public void setUp() {
+        page = new PageImpl<>(BenchmarkData.productDtos(pageSize), PageRequest.of(0, pageSize), 100_000);
+        
+        // アプリと同じく Jackson2ObjectMapperBuilder から各形式の ObjectMapper を作る
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+        
+        switch (format) {
+            case "json" -> {
+                converter = new MappingJackson2HttpMessageConverter(json);
+                mediaType = MediaType.APPLICATION_JSON;
+            }
+            case "cbor" -> {
+                converter = new MappingJackson2CborHttpMessageConverter(cbor);
+                mediaType = MediaType.APPLICATION_CBOR;
+            }
+            case "smile" -> {
+                converter = new MappingJackson2SmileHttpMessageConverter(smile);
+                mediaType = new MediaType("application", "x-jackson-smile");
+            }
+            case "dict" -> {
+                converter = new ProductDictionaryHttpMessageConverter(json, cbor);
+                mediaType = ProductDictionaryHttpMessageConverter.DICTIONARY_JSON;
+            }
+            case "dict-cbor" -> {
+                converter = new ProductDictionaryHttpMessageConverter(json, cbor);
+                mediaType = ProductDictionaryHttpMessageConverter.DICTIONARY_CBOR;
+            }
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        output = new BufferedOutputMessage();
+        
+        // 出力サイズは一定なので、計測前に一度だけログに出しておく
+        try {
+            log.info("[{}, pageSize={}] encoded size: {} bytes", format, pageSize, writePage());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    @Benchmark
+    public int writePage() throws IOException {
+        output.reset();
+        converter.write(page, PAGE_TYPE, mediaType, output);
+        return output.body.size();
+    }
+    
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+        
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+        
+        void reset() {
+            headers.clear();
+            body.reset();
+        }
+        
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+        
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.northwind.benchmark;
+
+import com.northwind.NorthwindApplication;
+import com.northwind.dto.ProductDto;
+import com.northwind.dto.StockMovementRequestDto;
+import com.northwind.dto.StockMovementResultDto;
+import com.northwind.exception.ProductVersionConflictException;
+import com.northwind.service.ProductCache;
+import com.northwind.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 少数の人気SKUに多数のピッカーが同時に出庫する場合の比較
+// - pickByDelta: 在庫移動API（UPDATE ... SET units_in_stock = units_in_stock + ?）
+// - pickByReadModifyWrite: 従来の読み込み→絶対値で上書き（@Version の競合時は再試行）
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class StockMovementBenchmark {
+    
+    private static final int CATALOG_SIZE = 1000;
+    
+    @Param({"1", "10"})
+    public int hotSkus;
+    
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductCache productCache;
+    private final AtomicLong retries = new AtomicLong();
+    private PrintStream stdout;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        // updateProduct の標準出力へのトレースを計測に含めない
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        SpringApplication application = new SpringApplication(NorthwindApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:stock-benchmark-" + hotSkus + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.jpa.show-sql=false",
+                "--northwind.seed.mode=generated",
+                "--northwind.seed.products=" + CATALOG_SIZE,
+                "--logging.level.root=WARN",
+                "--logging.level.com.northwind=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.web=WARN");
+        productService = context.getBean(ProductService.class);
+        productCache = context.getBean(ProductCache.class);
+        // 計測中に在庫が尽きないよう、人気SKUに十分な在庫を入れておく
+        for (long productId = 1; productId <= hotSkus; productId++) {
+            productService.moveStock(movement(StockMovementRequestDto.Type.RECEIVE, productId, 1_000_000_000));
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void reportRetries() {
+        stdout.println("read-modify-write retries: " + retries.getAndSet(0));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.setOut(stdout);
+    }
+    
+    @Benchmark
+    public StockMovementResultDto pickByDelta() {
+        return productService.moveStock(movement(StockMovementRequestDto.Type.PICK, hotSku(), 1));
+    }
+    
+    @Benchmark
+    public ProductDto pickByReadModifyWrite() {
+        long productId = hotSku();
+        while (true) {
+            // キャッシュ経由だと古い版を読み続けるため、毎回DBから読む
+            productCache.evict(productId);
+            ProductCache.Entry entry = productService.getVersionedProduct(productId).orElseThrow();
+            ProductDto product = entry.product();
+            product.setUnitsInStock(product.getUnitsInStock() - 1);
+            try {
+                return productService.updateProduct(productId, product, entry.version()).product();
+            } catch (ProductVersionConflictException | OptimisticLockingFailureException e) {
+                retries.incrementAndGet();
+            }
+        }
+    }
+    
+    private long hotSku() {
+        return ThreadLocalRandom.current().nextLong(1, hotSkus + 1L);
+    }
+    
+    private static StockMovementRequestDto movement(StockMovementRequestDto.Type type, long productId, int quantity) {
+        return StockMovementRequestDto.builder()
+                .type(type)
+                .reference("benchmark")
+                .lines(List.of(new StockMovementRequestDto.Line(productId, quantity)))
+                .build();
+    }
+}
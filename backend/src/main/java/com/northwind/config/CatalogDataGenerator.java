@@ -0,0 +1,356 @@
+package com.northwind.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 負荷試験・ベンチマーク用の大量データ生成（northwind.seed.mode=generated）
+// JPAを通さずJDBCのバッチINSERTで投入し、商品は固定サイズのブロック単位で複数スレッドに分配する。
+// 乱数はブロックごとに seed から決めるため、スレッド数が変わっても同じデータになる
+@Component
+@Slf4j
+public class CatalogDataGenerator {
+    
+    private static final String[] ADJECTIVES = {
+            "Organic", "Classic", "Premium", "Spicy", "Smoked", "Sweet", "Fresh", "Dried",
+            "Aged", "Roasted", "Wild", "Golden", "Mild", "Hearty", "Crispy", "Royal"
+    };
+    private static final String[] NOUNS = {
+            "Tea", "Coffee", "Ale", "Syrup", "Seasoning", "Sauce", "Cheese", "Salmon",
+            "Crab", "Noodles", "Biscuits", "Chocolate", "Jam", "Olive Oil", "Tofu", "Sausage"
+    };
+    private static final String[] PACKAGES = {
+            "10 boxes x 20 bags", "24 - 12 oz bottles", "12 - 550 ml bottles", "48 - 6 oz jars",
+            "36 boxes", "1 kg pkg.", "24 - 250 g pkgs.", "12 - 1 lb pkgs."
+    };
+    private static final String CREATED_BY = "generator";
+    
+    private static final String INSERT_PRODUCT = "INSERT INTO nw_products (product_id, name, code, quantity_per_unit, "
+            + "unit_price, unit_cost, units_in_stock, reorder_level, low_stock, stock_deficit, discontinued, "
+            + "deleted, deleted_at, deleted_by, deletion_reason, category, supplier, "
+            + "version, created_date, modified_date, created_by, modified_by) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)";
+    
+    private final DataSource dataSource;
+    private final int categories;
+    private final int suppliers;
+    private final int countries;
+    private final int regionsPerCountry;
+    private final int citiesPerRegion;
+    private final long products;
+    private final double categorySkew;
+    private final double lowStockRatio;
+    private final double deletedRatio;
+    private final double discontinuedRatio;
+    private final int threads;
+    private final int batchSize;
+    private final long seed;
+    
+    public CatalogDataGenerator(DataSource dataSource,
+                                @Value("${northwind.seed.categories:50}") int categories,
+                                @Value("${northwind.seed.suppliers:2000}") int suppliers,
+                                @Value("${northwind.seed.countries:30}") int countries,
+                                @Value("${northwind.seed.regions-per-country:10}") int regionsPerCountry,
+                                @Value("${northwind.seed.cities-per-region:20}") int citiesPerRegion,
+                                @Value("${northwind.seed.products:1000000}") long products,
+                                @Value("${northwind.seed.category-skew:1.1}") double categorySkew,
+                                @Value("${northwind.seed.low-stock-ratio:0.08}") double lowStockRatio,
+                                @Value("${northwind.seed.deleted-ratio:0.03}") double deletedRatio,
+                                @Value("${northwind.seed.discontinued-ratio:0.05}") double discontinuedRatio,
+                                @Value("${northwind.seed.threads:0}") int threads,
+                                @Value("${northwind.seed.batch-size:5000}") int batchSize,
+                                @Value("${northwind.seed.random-seed:42}") long seed,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        this.dataSource = dataSource;
+        this.categories = categories;
+        this.suppliers = suppliers;
+        this.countries = countries;
+        this.regionsPerCountry = regionsPerCountry;
+        this.citiesPerRegion = citiesPerRegion;
+        this.products = products;
+        this.categorySkew = categorySkew;
+        this.lowStockRatio = lowStockRatio;
+        this.deletedRatio = deletedRatio;
+        this.discontinuedRatio = discontinuedRatio;
+        // アプリ側の処理のため、コネクションプールに少なくとも1本は残しておく
+        int requested = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.threads = Math.max(1, Math.min(requested, maximumPoolSize - 1));
+        this.batchSize = batchSize;
+        this.seed = seed;
+    }
+    
+    public void generate() {
+        long started = System.nanoTime();
+        log.info("Generating catalog: {} products, {} categories, {} suppliers, {} cities ({} threads, batch {})",
+                products, categories, suppliers, (long) countries * regionsPerCountry * citiesPerRegion, threads, batchSize);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            insertGeography(now);
+            insertCategories(now);
+            insertSuppliers(now);
+            insertProducts(now);
+            restartIdentities();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Catalog generation failed", e);
+        }
+        log.info("Catalog generated in {} ms", (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private void insertGeography(LocalDateTime now) throws SQLException {
+        Timestamp created = Timestamp.valueOf(now);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement country = connection.prepareStatement(
+                         "INSERT INTO nw_countries (country_id, description, version, created_date, modified_date, created_by) VALUES (?, ?, 0, ?, ?, ?)");
+                 PreparedStatement region = connection.prepareStatement(
+                         "INSERT INTO nw_regions (region_id, description, country, version, created_date, modified_date, created_by) VALUES (?, ?, ?, 0, ?, ?, ?)");
+                 PreparedStatement city = connection.prepareStatement(
+                         "INSERT INTO nw_cities (city_id, description, region, version, created_date, modified_date, created_by) VALUES (?, ?, ?, 0, ?, ?, ?)")) {
+                long regionId = 0;
+                long cityId = 0;
+                for (long countryId = 1; countryId <= countries; countryId++) {
+                    country.setLong(1, countryId);
+                    country.setString(2, "Country " + countryId);
+                    setAudit(country, 3, created);
+                    country.addBatch();
+                    for (int r = 0; r < regionsPerCountry; r++) {
+                        regionId++;
+                        region.setLong(1, regionId);
+                        region.setString(2, "Region " + regionId);
+                        region.setLong(3, countryId);
+                        setAudit(region, 4, created);
+                        region.addBatch();
+                        for (int c = 0; c < citiesPerRegion; c++) {
+                            cityId++;
+                            city.setLong(1, cityId);
+                            city.setString(2, "City " + cityId);
+                            city.setLong(3, regionId);
+                            setAudit(city, 4, created);
+                            city.addBatch();
+                            if (cityId % batchSize == 0) {
+                                country.executeBatch();
+                                region.executeBatch();
+                                city.executeBatch();
+                            }
+                        }
+                    }
+                }
+                country.executeBatch();
+                region.executeBatch();
+                city.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+    
+    private void insertCategories(LocalDateTime now) throws SQLException {
+        Timestamp created = Timestamp.valueOf(now);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO nw_categories (category_id, name, description, version, created_date, modified_date, created_by) VALUES (?, ?, ?, 0, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (long id = 1; id <= categories; id++) {
+                statement.setLong(1, id);
+                statement.setString(2, NOUNS[(int) ((id - 1) % NOUNS.length)] + " " + id);
+                statement.setString(3, "Generated category " + id);
+                setAudit(statement, 4, created);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+    
+    private void insertSuppliers(LocalDateTime now) throws SQLException {
+        Timestamp created = Timestamp.valueOf(now);
+        long cities = (long) countries * regionsPerCountry * citiesPerRegion;
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO nw_suppliers (supplier_id, company_name, contact_name, phone, postal_code, city, region, country, "
+                             + "version, created_date, modified_date, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (long id = 1; id <= suppliers; id++) {
+                // 都市から地域・国を逆算して、階層の整合したデータにする
+                long cityId = random.nextLong(cities) + 1;
+                long regionId = (cityId - 1) / citiesPerRegion + 1;
+                long countryId = (regionId - 1) / regionsPerCountry + 1;
+                statement.setLong(1, id);
+                statement.setString(2, ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " Foods " + id);
+                statement.setString(3, "Contact " + id);
+                statement.setString(4, String.format("(%03d) %03d-%04d", random.nextInt(1000), random.nextInt(1000), random.nextInt(10000)));
+                statement.setString(5, String.format("%05d", random.nextInt(100000)));
+                statement.setLong(6, cityId);
+                statement.setLong(7, regionId);
+                statement.setLong(8, countryId);
+                setAudit(statement, 9, created);
+                statement.addBatch();
+                if (id % batchSize == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+    
+    private void insertProducts(LocalDateTime now) throws SQLException {
+        double[] categoryCdf = zipfCdf(categories, categorySkew);
+        long blocks = (products + batchSize - 1) / batchSize;
+        AtomicLong nextBlock = new AtomicLong();
+    
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    long inserted = 0;
+                    try (Connection connection = dataSource.getConnection();
+                         PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT)) {
+                        connection.setAutoCommit(false);
+                        long block;
+                        while ((block = nextBlock.getAndIncrement()) < blocks) {
+                            long first = block * batchSize + 1;
+                            long last = Math.min(products, first + batchSize - 1);
+                            SplittableRandom random = new SplittableRandom(seed * 31 + block);
+                            for (long id = first; id <= last; id++) {
+                                bindProduct(statement, id, random, categoryCdf, now);
+                                statement.addBatch();
+                            }
+                            statement.executeBatch();
+                            connection.commit();
+                            inserted += last - first + 1;
+                        }
+                    }
+                    return inserted;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> worker : workers) {
+                total += worker.get();
+            }
+            log.info("Inserted {} products", total);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new IllegalStateException("Product generation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Product generation interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void bindProduct(PreparedStatement statement, long id, SplittableRandom random,
+                             double[] categoryCdf, LocalDateTime now) throws SQLException {
+        // 価格は対数正規分布（安価な商品が多く、高額な商品が少ない）
+        BigDecimal unitPrice = BigDecimal.valueOf(Math.min(5000, Math.max(0.5, Math.exp(3.0 + 0.9 * random.nextGaussian()))))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal unitCost = unitPrice.multiply(BigDecimal.valueOf(random.nextDouble(0.55, 0.85)))
+                .setScale(2, RoundingMode.HALF_UP);
+    
+        // 在庫切れ気味の割合を low-stock-ratio に合わせる（Product#updateStockStatus と同じ判定）
+        int reorderLevel = random.nextInt(7) * 5;
+        int unitsInStock = random.nextDouble() < lowStockRatio
+                ? random.nextInt(reorderLevel + 1)
+                : reorderLevel + 1 + random.nextInt(150);
+        boolean deleted = random.nextDouble() < deletedRatio;
+        LocalDateTime created = now.minusMinutes(random.nextLong(60L * 24 * 365 * 3));
+    
+        statement.setLong(1, id);
+        statement.setString(2, ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]);
+        statement.setString(3, code(id));
+        statement.setString(4, PACKAGES[random.nextInt(PACKAGES.length)]);
+        statement.setBigDecimal(5, unitPrice);
+        statement.setBigDecimal(6, unitCost);
+        statement.setInt(7, unitsInStock);
+        statement.setInt(8, reorderLevel);
+        statement.setBoolean(9, unitsInStock <= reorderLevel);
+        statement.setInt(10, reorderLevel - unitsInStock);
+        statement.setBoolean(11, random.nextDouble() < discontinuedRatio);
+        statement.setBoolean(12, deleted);
+        if (deleted) {
+            statement.setTimestamp(13, Timestamp.valueOf(now));
+            statement.setString(14, CREATED_BY);
+            statement.setString(15, "Generated as deleted");
+        } else {
+            statement.setNull(13, Types.TIMESTAMP);
+            statement.setNull(14, Types.VARCHAR);
+            statement.setNull(15, Types.VARCHAR);
+        }
+        statement.setLong(16, sample(categoryCdf, random.nextDouble()));
+        statement.setLong(17, random.nextLong(suppliers) + 1);
+        statement.setTimestamp(18, Timestamp.valueOf(created));
+        statement.setTimestamp(19, Timestamp.valueOf(created));
+        statement.setString(20, CREATED_BY);
+        statement.setString(21, CREATED_BY);
+    }
+    
+    // 明示的にIDを入れたので、以降のアプリからの登録と衝突しないよう採番位置を進める
+    private void restartIdentities() throws SQLException {
+        long cities = (long) countries * regionsPerCountry * citiesPerRegion;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE nw_countries ALTER COLUMN country_id RESTART WITH " + (countries + 1));
+            statement.execute("ALTER TABLE nw_regions ALTER COLUMN region_id RESTART WITH " + ((long) countries * regionsPerCountry + 1));
+            statement.execute("ALTER TABLE nw_cities ALTER COLUMN city_id RESTART WITH " + (cities + 1));
+            statement.execute("ALTER TABLE nw_categories ALTER COLUMN category_id RESTART WITH " + (categories + 1));
+            statement.execute("ALTER TABLE nw_suppliers ALTER COLUMN supplier_id RESTART WITH " + (suppliers + 1));
+            // pooled optimizer は取得値の手前 allocationSize 分を使うため、その分の余裕を空ける
+            statement.execute("ALTER SEQUENCE nw_products_seq RESTART WITH " + (products + 101));
+        }
+    }
+    
+    // Zipf分布の累積確率（先頭のカテゴリほど商品が多い）
+    private static double[] zipfCdf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double total = 0;
+        for (int k = 1; k <= size; k++) {
+            total += 1 / Math.pow(k, exponent);
+            cdf[k - 1] = total;
+        }
+        for (int k = 0; k < size; k++) {
+            cdf[k] /= total;
+        }
+        return cdf;
+    }
+    
+    private static long sample(double[] cdf, double u) {
+        int index = Arrays.binarySearch(cdf, u);
+        int position = index >= 0 ? index : -index - 1;
+        return Math.min(position, cdf.length - 1) + 1;
+    }
+    
+    private static String code(long id) {
+        String digits = Long.toString(id);
+        return digits.length() >= 8 ? "G" + digits : "G" + "00000000".substring(digits.length()) + digits;
+    }
+    
+    private static void setAudit(PreparedStatement statement, int index, Timestamp created) throws SQLException {
+        statement.setTimestamp(index, created);
+        statement.setTimestamp(index + 1, created);
+        statement.setString(index + 2, CREATED_BY);
+    }
+}
@@ -1,9 +1,12 @@
 package com.northwind.config;
 
+import com.northwind.dto.ProductChangeEventDto;
 import com.northwind.entity.*;
 import com.northwind.repository.*;
+import com.northwind.service.ProductChangeFeed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -16,11 +19,23 @@ public class DataLoader implements CommandLineRunner {
     
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CatalogDataGenerator catalogDataGenerator;
+    private final ProductChangeFeed productChangeFeed;
+    
+    // sample: 少量のサンプルデータ / generated: CatalogDataGenerator による大量データ
+    @Value("${northwind.seed.mode:sample}")
+    private String seedMode;
     
     @Override
     public void run(String... args) throws Exception {
         if (categoryRepository.count() == 0) {
-            loadSampleData();
+            if ("generated".equalsIgnoreCase(seedMode)) {
+                catalogDataGenerator.generate();
+            } else {
+                loadSampleData();
+            }
+            // 起動直後から受け付けているリクエストの集計キャッシュなどを捨てさせる
+            productChangeFeed.publish(ProductChangeEventDto.Type.RELOAD, null, null, null);
         }
     }
     
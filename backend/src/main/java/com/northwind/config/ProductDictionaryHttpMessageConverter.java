@@ -0,0 +1,134 @@
+package com.northwind.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northwind.dto.CategorySummaryDto;
+import com.northwind.dto.ProductDictionaryDto;
+import com.northwind.dto.ProductDto;
+import com.northwind.dto.SupplierSummaryDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// List<ProductDto> / Page<ProductDto> を辞書エンコード形式で出力する（書き込み専用）
+public class ProductDictionaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    
+    // "+json" サフィックスにすると既定のJSONコンバータ（application/*+json）が先に一致してしまうため、独自のサブタイプにする
+    public static final MediaType DICTIONARY_JSON = MediaType.parseMediaType("application/vnd.northwind.dict");
+    public static final MediaType DICTIONARY_CBOR = MediaType.parseMediaType("application/vnd.northwind.dict-cbor");
+    
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    
+    public ProductDictionaryHttpMessageConverter(ObjectMapper jsonMapper, ObjectMapper cborMapper) {
+        super(DICTIONARY_JSON, DICTIONARY_CBOR);
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = cborMapper;
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || Page.class.isAssignableFrom(clazz);
+    }
+    
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        // 要素型が ProductDto のものだけを対象とする
+        ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        Class<?> raw = resolved.toClass();
+        if (!supports(raw)) {
+            return false;
+        }
+        Class<?> element = resolved.as(List.class.isAssignableFrom(raw) ? List.class : Page.class).getGeneric(0).resolve();
+        return element == ProductDto.class;
+    }
+    
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        ProductDictionaryDto dictionary;
+        if (value instanceof Page<?> page) {
+            dictionary = encode(page.getContent());
+            dictionary.setNumber(page.getNumber());
+            dictionary.setSize(page.getSize());
+            dictionary.setTotalElements(page.getTotalElements());
+            dictionary.setTotalPages(page.getTotalPages());
+        } else {
+            dictionary = encode((List<?>) value);
+        }
+        
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        ObjectMapper mapper = contentType != null && DICTIONARY_CBOR.isCompatibleWith(contentType) ? cborMapper : jsonMapper;
+        // 出力ストリームはフレームワーク側で閉じるため、ここでは閉じない（中間のbyte[]も作らない）
+        mapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(outputMessage.getBody(), dictionary);
+    }
+    
+    static ProductDictionaryDto encode(List<?> products) {
+        Map<Long, CategorySummaryDto> categories = new LinkedHashMap<>();
+        Map<Long, SupplierSummaryDto> suppliers = new LinkedHashMap<>();
+        ProductDictionaryDto dictionary = new ProductDictionaryDto();
+        
+        for (Object item : products) {
+            ProductDto product = (ProductDto) item;
+            CategorySummaryDto category = product.getCategory();
+            SupplierSummaryDto supplier = product.getSupplier();
+            if (category != null && category.getCategoryId() != null) {
+                categories.putIfAbsent(category.getCategoryId(), category);
+            }
+            if (supplier != null && supplier.getSupplierId() != null) {
+                suppliers.putIfAbsent(supplier.getSupplierId(), supplier);
+            }
+            
+            dictionary.getProducts().add(ProductDictionaryDto.Row.builder()
+                    .productId(product.getProductId())
+                    .name(product.getName())
+                    .code(product.getCode())
+                    .quantityPerUnit(product.getQuantityPerUnit())
+                    .unitPrice(product.getUnitPrice())
+                    .unitCost(product.getUnitCost())
+                    .unitsInStock(product.getUnitsInStock())
+                    .reorderLevel(product.getReorderLevel())
+                    .discontinued(product.getDiscontinued())
+                    .deleted(product.getDeleted())
+                    .deletedAt(product.getDeletedAt())
+                    .deletedBy(product.getDeletedBy())
+                    .deletionReason(product.getDeletionReason())
+                    .categoryId(category != null ? category.getCategoryId() : null)
+                    .supplierId(supplier != null ? supplier.getSupplierId() : null)
+                    .build());
+        }
+        
+        dictionary.getCategories().addAll(categories.values());
+        dictionary.getSuppliers().addAll(suppliers.values());
+        return dictionary;
+    }
+    
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Dictionary encoding is write-only", inputMessage);
+    }
+    
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Dictionary encoding is write-only", inputMessage);
+    }
+}
@@ -0,0 +1,85 @@
+package com.northwind.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 読み取りレプリカへのルーティング（northwind.datasource.replica-urls を設定した場合のみ有効）
+// プライマリは spring.datasource.* / spring.datasource.hikari.* の設定のまま作り、
+// JPAが使う "dataSource" は LazyConnectionDataSourceProxy + ReadWriteRoutingDataSource にする
+@Configuration
+@ConditionalOnProperty(name = "northwind.datasource.replica-urls")
+public class ReadWriteDataSourceConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${northwind.datasource.replica-urls}") String replicaUrls,
+            @Value("${northwind.datasource.replica-username:${spring.datasource.username:}}") String username,
+            @Value("${northwind.datasource.replica-password:${spring.datasource.password:}}") String password,
+            @Value("${northwind.datasource.replica-pool-size:10}") int poolSize,
+            @Value("${northwind.datasource.balancing:round-robin}") String balancing,
+            @Value("${northwind.datasource.read-your-writes-millis:2000}") long readYourWritesMillis,
+            @Value("${northwind.datasource.max-lag-millis:2000}") long maxLagMillis,
+            @Value("${northwind.datasource.lag-query:}") String lagQuery,
+            @Value("${northwind.datasource.health-check-millis:5000}") long healthCheckMillis) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<String> urls = Arrays.stream(replicaUrls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            if (properties.getDriverClassName() != null) {
+                replica.setDriverClassName(properties.getDriverClassName());
+            }
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replica.setReadOnly(true);
+            // 起動時にレプリカが落ちていてもアプリは起動し、ヘルスチェックで外す
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas,
+                ReadWriteRoutingDataSource.Balancing.valueOf(balancing.trim().toUpperCase().replace('-', '_')),
+                readYourWritesMillis, maxLagMillis, lagQuery, healthCheckMillis, meterRegistry);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+    
+    @Bean
+    public FilterRegistrationBean<ReadWriteRoutingFilter> readWriteRoutingFilter() {
+        FilterRegistrationBean<ReadWriteRoutingFilter> registration = new FilterRegistrationBean<>(new ReadWriteRoutingFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
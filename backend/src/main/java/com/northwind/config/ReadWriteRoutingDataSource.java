@@ -0,0 +1,219 @@
+package com.northwind.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 読み取り専用トランザクションをレプリカへ、それ以外をプライマリへ振り分ける DataSource
+// LazyConnectionDataSourceProxy の内側で使う（トランザクションの readOnly が確定してから接続を取得するため）
+// - レプリカはラウンドロビンまたは使用中接続数の少ない順に選ぶ
+// - 定期的なヘルスチェック（接続検証と任意の遅延クエリ）で不調なレプリカを外し、回復したら戻す
+// - 書き込みのコミット後しばらくは、同じクライアントの読み取りもプライマリへ送る（read-your-writes）
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    
+    public enum Balancing { ROUND_ROBIN, LEAST_LOADED }
+    
+    // このスレッド（リクエスト）でプライマリからの読み取りが必要な期限（epoch millis）
+    private static final ThreadLocal<Long> PRIMARY_UNTIL = new ThreadLocal<>();
+    private static final Object WRITE_MARKER_KEY = new Object();
+    
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Balancing balancing;
+    private final long readYourWritesMillis;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    private final Counter primaryRouted;
+    
+    static final class Replica {
+    
+        final String name;
+        final HikariDataSource dataSource;
+        final Counter routed;
+        volatile boolean healthy = true;
+        volatile long lagMillis;
+    
+        Replica(String name, HikariDataSource dataSource, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.routed = Counter.builder("northwind.datasource.routed")
+                    .description("Connections handed out by the read/write routing DataSource")
+                    .tag("target", name)
+                    .register(meterRegistry);
+            Gauge.builder("northwind.datasource.replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+                    .description("1 while the replica is in rotation, 0 while it is ejected")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("northwind.datasource.replica.lag", this, replica -> replica.lagMillis)
+                    .description("Replication lag reported by the lag query (ms)")
+                    .tag("replica", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    
+        int activeConnections() {
+            return dataSource.getHikariPoolMXBean() != null ? dataSource.getHikariPoolMXBean().getActiveConnections() : 0;
+        }
+    }
+    
+    public ReadWriteRoutingDataSource(HikariDataSource primary,
+                                      List<HikariDataSource> replicaDataSources,
+                                      Balancing balancing,
+                                      long readYourWritesMillis,
+                                      long maxLagMillis,
+                                      String lagQuery,
+                                      long healthCheckMillis,
+                                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.balancing = balancing;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.primaryRouted = Counter.builder("northwind.datasource.routed")
+                .description("Connections handed out by the read/write routing DataSource")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        this.replicas = new ArrayList<>();
+        for (HikariDataSource replica : replicaDataSources) {
+            replicas.add(new Replica(replica.getPoolName(), replica, meterRegistry));
+        }
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("replica-health-check").factory());
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    // リクエスト開始時に、クライアントが直前に書き込んだ場合の期限を設定する（ReadWriteRoutingFilter から）
+    static void requirePrimaryUntil(long epochMillis) {
+        PRIMARY_UNTIL.set(epochMillis);
+    }
+    
+    static void clearRequestState() {
+        PRIMARY_UNTIL.remove();
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            markWrite();
+            return primaryConnection();
+        }
+        Long until = PRIMARY_UNTIL.get();
+        if (until != null && until > System.currentTimeMillis()) {
+            return primaryConnection();
+        }
+        Replica replica;
+        while ((replica = chooseReplica()) != null) {
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.routed.increment();
+                return connection;
+            } catch (SQLException e) {
+                // 取得に失敗したレプリカは外し、次の候補（最後はプライマリ）で続行する
+                log.warn("Replica {} ejected: {}", replica.name, e.getMessage());
+                replica.healthy = false;
+            }
+        }
+        return primaryConnection();
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+    
+    private Connection primaryConnection() throws SQLException {
+        primaryRouted.increment();
+        return primary.getConnection();
+    }
+    
+    private Replica chooseReplica() {
+        List<Replica> candidates = replicas.stream().filter(replica -> replica.healthy).toList();
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (balancing == Balancing.LEAST_LOADED) {
+            return candidates.stream().min(Comparator.comparingInt(Replica::activeConnections)).orElse(null);
+        }
+        return candidates.get(Math.floorMod(nextReplica.getAndIncrement(), candidates.size()));
+    }
+    
+    // 書き込みトランザクションがコミットされたら、read-your-writes の期限を延ばす
+    private void markWrite() {
+        if (readYourWritesMillis <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_MARKER_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_MARKER_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long until = System.currentTimeMillis() + readYourWritesMillis;
+                PRIMARY_UNTIL.set(until);
+                ReadWriteRoutingFilter.rememberWrite(until);
+            }
+    
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_MARKER_KEY);
+            }
+        });
+    }
+    
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(2);
+                if (healthy && lagQuery != null) {
+                    replica.lagMillis = queryLag(connection);
+                    healthy = replica.lagMillis <= maxLagMillis;
+                }
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("Replica {} is healthy again and back in rotation", replica.name);
+                } else if (lagQuery != null && replica.lagMillis > maxLagMillis) {
+                    log.warn("Replica {} ejected: lag {} ms exceeds {} ms", replica.name, replica.lagMillis, maxLagMillis);
+                } else {
+                    log.warn("Replica {} ejected: connection check failed", replica.name);
+                }
+                replica.healthy = healthy;
+            }
+        }
+    }
+    
+    private long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            return resultSet.next() ? (long) resultSet.getDouble(1) : 0;
+        }
+    }
+    
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+}
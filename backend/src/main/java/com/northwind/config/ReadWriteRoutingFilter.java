@@ -0,0 +1,65 @@
+package com.northwind.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// read-your-writes：書き込みをコミットしたクライアントに期限付きCookieを返し、
+// 期限内のリクエストでは読み取り専用トランザクションもプライマリから読む
+public class ReadWriteRoutingFilter extends OncePerRequestFilter {
+    
+    static final String COOKIE_NAME = "NW_PRIMARY_UNTIL";
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Long until = primaryUntil(request);
+        if (until != null && until > System.currentTimeMillis()) {
+            ReadWriteRoutingDataSource.requirePrimaryUntil(until);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clearRequestState();
+        }
+    }
+    
+    private static Long primaryUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+    
+    // 書き込みトランザクションのコミット時に呼ばれる（リクエスト外のスレッドでは何もしない）
+    static void rememberWrite(long until) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletResponse response = attributes.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (until - System.currentTimeMillis() + 999) / 1000));
+        response.addCookie(cookie);
+    }
+}
@@ -0,0 +1,92 @@
+package com.northwind.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+// SQL文の計測（リクエスト単位・リポジトリメソッド単位）
+// DataSource を datasource-proxy で包み、リポジトリのプロキシにはメソッド単位の集計用インターセプタを追加する
+@Configuration
+@ConditionalOnProperty(name = "northwind.sql.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMetricsConfig {
+    
+    @Bean
+    static BeanPostProcessor sqlMetricsDataSourcePostProcessor() {
+        SqlStatementListener listener = new SqlStatementListener();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // JPAが使う DataSource だけを包む（レプリカ構成時のプライマリ等を二重に数えないように）
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener)
+                            .methodListener(listener)
+                            .proxyResultSet()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+    
+    @Bean
+    static BeanPostProcessor sqlMetricsRepositoryPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                                    repositoryInterceptor(repositoryInformation.getRepositoryInterface().getSimpleName(), meterRegistry))));
+                }
+                return bean;
+            }
+        };
+    }
+    
+    private static MethodInterceptor repositoryInterceptor(String repository, ObjectProvider<MeterRegistry> meterRegistry) {
+        return invocation -> {
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            String method = invocation.getMethod().getName();
+            SqlStatementStats.Frame frame = SqlStatementStats.enterRepository(repository + "." + method);
+            try {
+                return invocation.proceed();
+            } finally {
+                SqlStatementStats.exitRepository(frame);
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry != null) {
+                    DistributionSummary.builder("northwind.sql.repository.statements")
+                            .description("JDBC statements executed per repository method call")
+                            .tags("repository", repository, "method", method)
+                            .register(registry)
+                            .record(frame.statements);
+                    DistributionSummary.builder("northwind.sql.repository.rows")
+                            .description("Result set rows read per repository method call")
+                            .tags("repository", repository, "method", method)
+                            .register(registry)
+                            .record(frame.rows);
+                    Timer.builder("northwind.sql.repository.time")
+                            .description("Time spent executing JDBC statements per repository method call")
+                            .tags("repository", repository, "method", method)
+                            .register(registry)
+                            .record(frame.nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+    }
+}
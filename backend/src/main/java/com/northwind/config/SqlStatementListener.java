@@ -0,0 +1,44 @@
+package com.northwind.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+// datasource-proxy のリスナー：文の実行回数・時間とResultSetの取得行数を SqlStatementStats に加算する
+class SqlStatementListener implements QueryExecutionListener, MethodExecutionListener {
+    
+    private static final String STARTED_AT = "northwind.sql.startedAt";
+    
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // strictモードで予算を超える場合は、実行前に失敗させる
+        SqlStatementStats.beforeStatement();
+        execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+    }
+    
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+        long elapsed = startedAt != null ? System.nanoTime() - startedAt : 0;
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        SqlStatementStats.afterStatement(sql, elapsed);
+    }
+    
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+    
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            SqlStatementStats.afterRow();
+        }
+    }
+}
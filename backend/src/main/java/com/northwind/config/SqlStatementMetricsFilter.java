@@ -0,0 +1,146 @@
+package com.northwind.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// リクエスト単位のSQL文数・取得行数・SQL時間をメトリクスに記録し、遅い／多すぎるリクエストをログに出す
+// strictモードでは1リクエストの文数が予算を超えた時点で SqlStatementBudgetExceededException にする（テスト用）
+@Component
+@ConditionalOnProperty(name = "northwind.sql.metrics.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+    
+    private static final int LOGGED_SQL = 5;
+    
+    private final MeterRegistry meterRegistry;
+    private final int chattyThreshold;
+    private final long slowNanos;
+    private final int repeatedThreshold;
+    private final boolean strict;
+    private final int budget;
+    private final List<String> excludedPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    
+    public SqlStatementMetricsFilter(MeterRegistry meterRegistry,
+                                     @Value("${northwind.sql.chatty-threshold:20}") int chattyThreshold,
+                                     @Value("${northwind.sql.slow-millis:500}") long slowMillis,
+                                     @Value("${northwind.sql.repeated-threshold:10}") int repeatedThreshold,
+                                     @Value("${northwind.sql.budget.strict:false}") boolean strict,
+                                     @Value("${northwind.sql.budget.max-statements:50}") int budget,
+                                     @Value("${northwind.sql.budget.excluded-paths:}") List<String> excludedPaths) {
+        this.meterRegistry = meterRegistry;
+        this.chattyThreshold = chattyThreshold;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+        this.repeatedThreshold = repeatedThreshold;
+        this.strict = strict;
+        this.budget = budget;
+        this.excludedPaths = excludedPaths;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementStats.begin(strict && !isExcluded(request) ? budget : 0);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementStats.end();
+            record(request, stats);
+        }
+    }
+    
+    private boolean isExcluded(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return excludedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern.trim(), path));
+    }
+    
+    private void record(HttpServletRequest request, SqlStatementStats stats) {
+        if (stats.statements == 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        
+        DistributionSummary.builder("northwind.sql.request.statements")
+                .description("JDBC statements executed per HTTP request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.statements);
+        DistributionSummary.builder("northwind.sql.request.rows")
+                .description("Result set rows read per HTTP request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.rows);
+        Timer.builder("northwind.sql.request.time")
+                .description("Time spent executing JDBC statements per HTTP request")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.nanos, TimeUnit.NANOSECONDS);
+        
+        // 同一SQLの繰り返し（N+1の疑い）
+        List<Map.Entry<String, Integer>> repeated = stats.sqlCounts.entrySet().stream()
+                .filter(entry -> entry.getValue() >= repeatedThreshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .toList();
+        if (!repeated.isEmpty()) {
+            Counter.builder("northwind.sql.request.repeated")
+                    .description("HTTP requests that repeated the same SQL statement at least the configured number of times")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+        }
+        
+        if (stats.statements > chattyThreshold || stats.nanos > slowNanos || !repeated.isEmpty()) {
+            log.warn("SQL-heavy request {} {}: {} statements, {} rows, {} ms in SQL\n  repositories: {}\n  repeated: {}",
+                    method, uri, stats.statements, stats.rows, TimeUnit.NANOSECONDS.toMillis(stats.nanos),
+                    formatRepositories(stats), formatRepeated(repeated));
+        }
+    }
+    
+    private static String formatRepositories(SqlStatementStats stats) {
+        if (stats.repositoryTotals.isEmpty()) {
+            return "-";
+        }
+        return stats.repositoryTotals.values().stream()
+                .sorted(Comparator.comparingInt((SqlStatementStats.Frame frame) -> frame.statements).reversed())
+                .map(frame -> String.format("%s x%d (%d statements, %d rows, %d ms)", frame.name, frame.calls,
+                        frame.statements, frame.rows, TimeUnit.NANOSECONDS.toMillis(frame.nanos)))
+                .collect(Collectors.joining(", "));
+    }
+    
+    private static String formatRepeated(List<Map.Entry<String, Integer>> repeated) {
+        if (repeated.isEmpty()) {
+            return "-";
+        }
+        return repeated.stream()
+                .limit(LOGGED_SQL)
+                .map(entry -> entry.getValue() + "x " + abbreviate(entry.getKey()))
+                .collect(Collectors.joining("\n    ", "\n    ", ""));
+    }
+    
+    private static String abbreviate(String sql) {
+        String compact = sql.replaceAll("\\s+", " ").trim();
+        return compact.length() > 300 ? compact.substring(0, 300) + "..." : compact;
+    }
+}
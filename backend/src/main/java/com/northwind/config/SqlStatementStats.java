@@ -0,0 +1,121 @@
+package com.northwind.config;
+
+import com.northwind.exception.SqlStatementBudgetExceededException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 1リクエスト中に発行されたSQLの集計（スレッドローカル）
+// リポジトリメソッドの呼び出し中は、そのメソッドの Frame にも同時に加算する
+final class SqlStatementStats {
+    
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<Frame>> REPOSITORY_FRAMES = new ThreadLocal<>();
+    
+    // 同一SQLの回数集計はこの種類数まで（巨大なIN句などでメモリを使いすぎないように）
+    private static final int MAX_DISTINCT_SQL = 200;
+    
+    private final int budget;
+    int statements;
+    long rows;
+    long nanos;
+    final Map<String, Integer> sqlCounts = new HashMap<>();
+    final Map<String, Frame> repositoryTotals = new LinkedHashMap<>();
+    
+    static final class Frame {
+        
+        final String name;
+        int calls;
+        int statements;
+        long rows;
+        long nanos;
+        
+        Frame(String name) {
+            this.name = name;
+        }
+    }
+    
+    private SqlStatementStats(int budget) {
+        this.budget = budget;
+    }
+    
+    // budget <= 0 の場合は文数を制限しない
+    static SqlStatementStats begin(int budget) {
+        SqlStatementStats stats = new SqlStatementStats(budget);
+        CURRENT.set(stats);
+        return stats;
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    static Frame enterRepository(String name) {
+        Deque<Frame> frames = REPOSITORY_FRAMES.get();
+        if (frames == null) {
+            frames = new ArrayDeque<>();
+            REPOSITORY_FRAMES.set(frames);
+        }
+        Frame frame = new Frame(name);
+        frames.push(frame);
+        return frame;
+    }
+    
+    static void exitRepository(Frame frame) {
+        Deque<Frame> frames = REPOSITORY_FRAMES.get();
+        frames.removeFirstOccurrence(frame);
+        if (frames.isEmpty()) {
+            REPOSITORY_FRAMES.remove();
+        }
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null) {
+            Frame total = stats.repositoryTotals.computeIfAbsent(frame.name, Frame::new);
+            total.calls++;
+            total.statements += frame.statements;
+            total.rows += frame.rows;
+            total.nanos += frame.nanos;
+        }
+    }
+    
+    static void beforeStatement() {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null && stats.budget > 0 && stats.statements >= stats.budget) {
+            throw new SqlStatementBudgetExceededException(stats.budget);
+        }
+    }
+    
+    static void afterStatement(String sql, long elapsedNanos) {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+            if (stats.sqlCounts.size() < MAX_DISTINCT_SQL || stats.sqlCounts.containsKey(sql)) {
+                stats.sqlCounts.merge(sql, 1, Integer::sum);
+            }
+        }
+        Frame frame = currentFrame();
+        if (frame != null) {
+            frame.statements++;
+            frame.nanos += elapsedNanos;
+        }
+    }
+    
+    static void afterRow() {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows++;
+        }
+        Frame frame = currentFrame();
+        if (frame != null) {
+            frame.rows++;
+        }
+    }
+    
+    private static Frame currentFrame() {
+        Deque<Frame> frames = REPOSITORY_FRAMES.get();
+        return frames != null ? frames.peek() : null;
+    }
+}
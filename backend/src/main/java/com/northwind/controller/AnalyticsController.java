@@ -0,0 +1,47 @@
+package com.northwind.controller;
+
+import com.northwind.dto.SalesReportDto;
+import com.northwind.service.SalesAnalytics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Sales Analytics", description = "Sales reports served from in-memory rollups")
+public class AnalyticsController {
+    
+    private final SalesAnalytics salesAnalytics;
+    
+    @GetMapping("/sales")
+    @Operation(summary = "Sales quantity, revenue and margin by product, category, supplier or day")
+    public ResponseEntity<SalesReportDto> getSalesReport(
+            @RequestParam(defaultValue = "product") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int limit) {
+        SalesReportDto.GroupBy group;
+        try {
+            group = SalesReportDto.GroupBy.valueOf(groupBy.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salesAnalytics.report(group, from, to, limit));
+    }
+    
+    @PostMapping("/sales/snapshot")
+    @Operation(summary = "Persist the current sales rollup to nw_reports / nw_sold_product_view")
+    public ResponseEntity<Map<String, Object>> snapshotSales() {
+        return ResponseEntity.ok(Map.of("saved", salesAnalytics.snapshot()));
+    }
+}
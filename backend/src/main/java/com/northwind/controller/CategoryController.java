@@ -1,10 +1,12 @@
 package com.northwind.controller;
 
 import com.northwind.dto.CategoryDto;
+import com.northwind.dto.CategoryStatsDto;
 import com.northwind.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,17 +23,27 @@ public class CategoryController {
 
     @GetMapping
     @Operation(summary = "Get all categories")
-    public ResponseEntity<List<CategoryDto>> getAllCategories() {
-        List<CategoryDto> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<List<CategoryDto>> getAllCategories(
+            @RequestParam(defaultValue = "false") boolean breakdown,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, null, ETags.weak(categoryService.getCategoryFingerprint(), categoryService.getCatalogVersion()), null,
+                () -> categoryService.getAllCategories(breakdown));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get inventory valuation and margin statistics per category")
+    public ResponseEntity<CategoryStatsDto> getCategoryStats() {
+        return ResponseEntity.ok(categoryService.getCategoryStats());
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get category by ID")
-    public ResponseEntity<CategoryDto> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<CategoryDto> getCategoryById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            CategoryDto category = categoryService.getCategoryById(id);
-            return ResponseEntity.ok(category);
+            return ETags.conditional(ifNoneMatch, null, ETags.weak(categoryService.getCategoryFingerprint(), categoryService.getCatalogVersion()), null,
+                    () -> categoryService.getCategoryById(id));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -0,0 +1,172 @@
+package com.northwind.controller;
+
+import com.northwind.config.ProductDictionaryHttpMessageConverter;
+import com.northwind.repository.TableFingerprint;
+import com.northwind.service.CatalogChangeCounter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// ETag / If-None-Match / If-Match / If-Modified-Since の生成と比較
+// 同じリソースでも Accept によって JSON / CBOR / Smile / 辞書形式と表現が変わるため、
+// ETag の末尾に交渉される形式（+json など）を付けて、別の形式の表現と一致しないようにする
+final class ETags {
+    
+    // WebConfig.extendMessageConverters で登録する順（Accept が */* の場合は先頭のJSON）
+    private static final Map<MediaType, String> REPRESENTATIONS = new LinkedHashMap<>();
+    
+    static {
+        REPRESENTATIONS.put(MediaType.APPLICATION_JSON, "json");
+        REPRESENTATIONS.put(MediaType.APPLICATION_CBOR, "cbor");
+        REPRESENTATIONS.put(MediaType.parseMediaType("application/x-jackson-smile"), "smile");
+        REPRESENTATIONS.put(ProductDictionaryHttpMessageConverter.DICTIONARY_JSON, "dict");
+        REPRESENTATIONS.put(ProductDictionaryHttpMessageConverter.DICTIONARY_CBOR, "dict-cbor");
+    }
+    
+    private ETags() {
+    }
+    
+    // 単一商品用の強いETag（商品のバージョンと、DTOに埋め込まれるカテゴリのバージョン）
+    static String strong(long version, long categoryVersion) {
+        return "\"" + version + "." + categoryVersion + "+" + representation() + "\"";
+    }
+    
+    // 商品一覧用の弱いETag（変更フィードの件数から生成）
+    static String weak(CatalogChangeCounter.Version catalog) {
+        return "W/\"" + catalog.epoch() + "-" + catalog.changes() + "+" + representation() + "\"";
+    }
+    
+    // カテゴリ一覧用の弱いETag（カテゴリテーブルの集計値と、商品数の変化を検出するための商品一覧の変更件数）
+    static String weak(TableFingerprint fingerprint, CatalogChangeCounter.Version catalog) {
+        return "W/\"" + fingerprint.getRowCount()
+                + "-" + (fingerprint.getVersionSum() != null ? fingerprint.getVersionSum() : 0)
+                + "-" + (fingerprint.getLastModified() != null
+                        ? fingerprint.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        : 0)
+                + "." + catalog.epoch() + "-" + catalog.changes() + "+" + representation() + "\"";
+    }
+    
+    // 現在のリクエストの Accept から、メッセージコンバータが選ぶ形式を求める
+    // 品質値・具体性の高い順に、最初に書き出せる形式を採る（不正な Accept はJSONとして扱う）
+    static String representation() {
+        String accept = RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getHeader(HttpHeaders.ACCEPT)
+                : null;
+        if (accept == null || accept.isBlank()) {
+            return "json";
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "json";
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        for (MediaType mediaType : acceptable) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (Map.Entry<MediaType, String> representation : REPRESENTATIONS.entrySet()) {
+                if (mediaType.isCompatibleWith(representation.getKey())) {
+                    return representation.getValue();
+                }
+            }
+        }
+        return "json";
+    }
+    
+    // If-None-Match は弱い比較（W/ を無視して比較）
+    static boolean matchesNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String target = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || opaque(value).equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // If-Match で指定された商品のバージョン（弱いETagや不正な値は強い比較で一致しないためnull）
+    // 更新の競合は商品のバージョンだけで判定する（カテゴリの変更は商品の更新内容と競合しない）
+    static Long versionFromIfMatch(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String value = ifMatch.split(",")[0].trim();
+        if (value.startsWith("W/")) {
+            return null;
+        }
+        try {
+            // 形式のサフィックス（+json など）とカテゴリのバージョンは無視する
+            String opaque = value.replace("\"", "");
+            int separator = opaque.indexOf('.');
+            if (separator < 0) {
+                separator = opaque.indexOf('+');
+            }
+            return Long.valueOf(separator >= 0 ? opaque.substring(0, separator) : opaque);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    // ETag または更新日時が一致すれば本文を生成せずに304を返す
+    static <T> ResponseEntity<T> conditional(String ifNoneMatch, String ifModifiedSince,
+                                             CatalogChangeCounter.Version catalog, Supplier<T> body) {
+        return conditional(ifNoneMatch, ifModifiedSince, weak(catalog), catalog.lastModified(), body);
+    }
+    
+    // If-None-Match がある場合は If-Modified-Since を評価しない（RFC 9110）
+    static <T> ResponseEntity<T> conditional(String ifNoneMatch, String ifModifiedSince, String etag,
+                                             Instant lastModified, Supplier<T> body) {
+        Instant lastModifiedSeconds = lastModified != null ? lastModified.truncatedTo(ChronoUnit.SECONDS) : null;
+        boolean notModified = ifNoneMatch != null
+                ? matchesNoneMatch(ifNoneMatch, etag)
+                : notModifiedSince(ifModifiedSince, lastModifiedSeconds);
+        ResponseEntity.BodyBuilder builder = notModified
+                ? ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                : ResponseEntity.ok();
+        builder.eTag(etag);
+        if (lastModifiedSeconds != null) {
+            builder.lastModified(lastModifiedSeconds);
+        }
+        return notModified ? builder.build() : builder.body(body.get());
+    }
+    
+    // 不正な日付の If-Modified-Since は無視する
+    private static boolean notModifiedSince(String ifModifiedSince, Instant lastModified) {
+        if (ifModifiedSince == null || lastModified == null) {
+            return false;
+        }
+        try {
+            Instant since = ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return !lastModified.isAfter(since);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+    
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
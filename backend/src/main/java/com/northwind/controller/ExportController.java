@@ -0,0 +1,111 @@
+package com.northwind.controller;
+
+import com.northwind.dto.ExportJobDto;
+import com.northwind.exception.ExportQueueFullException;
+import com.northwind.service.ProductExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/exports/products")
+@RequiredArgsConstructor
+@Tag(name = "Catalog Export", description = "Asynchronous catalog export to CSV and columnar files")
+public class ExportController {
+    
+    private final ProductExportService productExportService;
+    
+    // 受付のみ行い、進捗は Location のURLで確認する
+    @PostMapping
+    @Operation(summary = "Start a catalog export (formats: csv, columnar)")
+    public ResponseEntity<ExportJobDto> startExport(
+            @RequestParam(defaultValue = "csv,columnar") List<String> formats,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        List<ExportJobDto.Format> selected = new ArrayList<>();
+        try {
+            for (String format : formats) {
+                ExportJobDto.Format parsed = ExportJobDto.Format.valueOf(format.trim().toUpperCase());
+                if (!selected.contains(parsed)) {
+                    selected.add(parsed);
+                }
+            }
+            ExportJobDto job = productExportService.start(selected, gzip);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/exports/products/" + job.getJobId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ExportQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .build();
+        }
+    }
+    
+    @GetMapping
+    @Operation(summary = "List recent catalog export jobs")
+    public ResponseEntity<List<ExportJobDto>> getExports() {
+        return ResponseEntity.ok(productExportService.getJobs());
+    }
+    
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get the state and progress of a catalog export")
+    public ResponseEntity<ExportJobDto> getExport(@PathVariable String jobId) {
+        return productExportService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/{jobId}/files/{format}")
+    @Operation(summary = "Download a file of a completed catalog export")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String jobId, @PathVariable String format) {
+        ExportJobDto.Format selected;
+        try {
+            selected = ExportJobDto.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<ExportJobDto> job = productExportService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().getState() != ExportJobDto.State.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Optional<Path> file = productExportService.getFile(jobId, selected);
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path path = file.get();
+        MediaType contentType = selected == ExportJobDto.Format.COLUMNAR ? MediaType.APPLICATION_OCTET_STREAM
+                : job.get().isGzip() ? MediaType.parseMediaType("application/gzip")
+                : new MediaType("text", "csv");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(path.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(path));
+    }
+    
+    @DeleteMapping("/{jobId}")
+    @Operation(summary = "Cancel a running export, or delete a finished export and its files")
+    public ResponseEntity<Void> deleteExport(@PathVariable String jobId) {
+        return productExportService.cancel(jobId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
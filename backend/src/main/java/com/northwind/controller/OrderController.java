@@ -0,0 +1,95 @@
+package com.northwind.controller;
+
+import com.northwind.dto.OrderDto;
+import com.northwind.dto.OrderRequestDto;
+import com.northwind.exception.InsufficientStockException;
+import com.northwind.exception.OrderNotFoundException;
+import com.northwind.exception.OrderQueueFullException;
+import com.northwind.exception.OrderStatusConflictException;
+import com.northwind.exception.ProductNotFoundException;
+import com.northwind.exception.StockLimitExceededException;
+import com.northwind.service.OrderIngestionPipeline;
+import com.northwind.service.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+@Tag(name = "Order Management", description = "APIs for entering customer orders")
+public class OrderController {
+    
+    private final OrderService orderService;
+    private final OrderIngestionPipeline orderIngestionPipeline;
+    
+    // 受注はまとめてコミットされるため、コミット完了まで非同期で待ってから応答する
+    @PostMapping
+    @Operation(summary = "Enter a customer order (validated, then committed with other orders in a micro-batch)")
+    public CompletableFuture<ResponseEntity<Object>> createOrder(@RequestBody OrderRequestDto request) {
+        try {
+            return orderIngestionPipeline.submit(request)
+                    .thenApply(order -> ResponseEntity.status(HttpStatus.CREATED).body((Object) order))
+                    .exceptionally(OrderController::toErrorResponse);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(toErrorResponse(e));
+        }
+    }
+    
+    @GetMapping("/{id}")
+    @Operation(summary = "Get order by ID")
+    public ResponseEntity<OrderDto> getOrderById(@PathVariable Long id) {
+        return orderService.getOrder(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/{id}/ship")
+    @Operation(summary = "Ship an open (NEW) order")
+    public ResponseEntity<Object> shipOrder(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(orderService.shipOrder(id));
+        } catch (RuntimeException e) {
+            return toErrorResponse(e);
+        }
+    }
+    
+    @PostMapping("/{id}/cancel")
+    @Operation(summary = "Cancel an open (NEW) order and return its stock")
+    public ResponseEntity<Object> cancelOrder(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(orderService.cancelOrder(id));
+        } catch (RuntimeException e) {
+            return toErrorResponse(e);
+        }
+    }
+    
+    private static ResponseEntity<Object> toErrorResponse(Throwable error) {
+        Throwable e = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (e instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (e instanceof ProductNotFoundException || e instanceof OrderNotFoundException) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+        if (e instanceof InsufficientStockException || e instanceof StockLimitExceededException
+                || e instanceof OrderStatusConflictException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+        if (e instanceof OrderQueueFullException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Failed to process order"));
+    }
+}
@@ -1,20 +1,48 @@
 package com.northwind.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northwind.dto.BulkOperationResultDto;
+import com.northwind.dto.BulkProductRequestDto;
+import com.northwind.dto.CursorPageDto;
+import com.northwind.dto.ImportResultDto;
+import com.northwind.dto.ProductBatchDto;
 import com.northwind.dto.ProductDto;
+import com.northwind.dto.StockMovementRequestDto;
+import com.northwind.dto.StockMovementResultDto;
 import com.northwind.exception.CannotDeleteProductException;
+import com.northwind.exception.InsufficientStockException;
 import com.northwind.exception.ProductNotFoundException;
+import com.northwind.exception.ProductVersionConflictException;
+import com.northwind.exception.StockLimitExceededException;
+import com.northwind.repository.ProductField;
+import com.northwind.repository.ProductFieldsRow;
+import com.northwind.service.ProductCache;
+import com.northwind.service.ProductChangeFeed;
+import com.northwind.service.ProductImportService;
 import com.northwind.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/products")
@@ -24,64 +52,239 @@ import java.util.Map;
 public class ProductController {
     
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductChangeFeed productChangeFeed;
+    private final ObjectMapper objectMapper;
     
     @GetMapping
     @Operation(summary = "Get all products with pagination")
-    public ResponseEntity<Page<ProductDto>> getAllProducts(Pageable pageable) {
-        Page<ProductDto> products = productService.getAllProducts(pageable);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<Page<ProductDto>> getAllProducts(
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.getAllProducts(pageable));
+    }
+    
+    // ?fields=name,unitPrice のように指定すると、その列だけを射影して返す（productId は常に含む）
+    @GetMapping(params = "fields")
+    @Operation(summary = "Get selected fields of all products with pagination (sparse fieldset)")
+    public ResponseEntity<Page<ProductFieldsRow>> getAllProductFields(
+            @RequestParam String fields,
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        try {
+            List<ProductField> selected = ProductField.parse(fields);
+            ProductField.checkSortable(pageable.getSort());
+            return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                    () -> productService.getAllProductFields(selected, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/cursor")
+    @Operation(summary = "Get products with keyset (cursor) pagination")
+    public ResponseEntity<CursorPageDto<ProductDto>> getProductsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "productId") String sort,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(productService.getProductsAfter(after, clampPageSize(size), sort, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/all")
     @Operation(summary = "Get all products without pagination")
-    public ResponseEntity<List<ProductDto>> getAllProducts() {
-        List<ProductDto> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.getAllProducts());
+    }
+    
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all products as NDJSON (one product per line)")
+    public void streamAllProducts(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        try {
+            productService.streamAllProducts(product -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(product));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+    
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to product change events (Server-Sent Events)")
+    public ResponseEntity<SseEmitter> streamProductChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(required = false) Long since) {
+        SseEmitter emitter = productChangeFeed.subscribe(lastEventId != null ? lastEventId : since);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    // カート・受注明細などで複数商品を1回で取得する（?ids=1,2,3）
+    @GetMapping("/batch")
+    @Operation(summary = "Get multiple products by ID in request order")
+    public ResponseEntity<ProductBatchDto> getProductsByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // IDが多くクエリ文字列に収まらない場合は、IDの配列をPOSTする
+    @PostMapping("/batch")
+    @Operation(summary = "Get multiple products by ID in request order (ids in the request body)")
+    public ResponseEntity<ProductBatchDto> getProductsByIdsPost(@RequestBody List<Long> ids) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID")
-    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(product -> ResponseEntity.ok(product))
+    public ResponseEntity<ProductDto> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // If-None-Match がある場合は、DTOに変換せずにバージョンだけで304を判定する
+        if (ifNoneMatch != null) {
+            Optional<String> etag = productService.getProductVersion(id)
+                    .map(version -> ETags.strong(version.version(), version.categoryVersion()));
+            if (etag.isPresent() && ETags.matchesNoneMatch(ifNoneMatch, etag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+            }
+        }
+        return productService.getVersionedProduct(id)
+                .map(entry -> ResponseEntity.ok().eTag(ETags.strong(entry.version(), entry.categoryVersion())).body(entry.product()))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/active")
     @Operation(summary = "Get all active products")
-    public ResponseEntity<List<ProductDto>> getActiveProducts() {
-        List<ProductDto> products = productService.getActiveProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> getActiveProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.getActiveProducts());
     }
     
     @GetMapping("/search")
     @Operation(summary = "Search products by name")
     public ResponseEntity<Page<ProductDto>> searchProducts(
             @RequestParam String name,
-            Pageable pageable) {
-        Page<ProductDto> products = productService.searchProducts(name, pageable);
-        return ResponseEntity.ok(products);
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.searchProducts(name, pageable));
+    }
+    
+    @GetMapping(value = "/search", params = "fields")
+    @Operation(summary = "Search selected fields of products by name (sparse fieldset)")
+    public ResponseEntity<Page<ProductFieldsRow>> searchProductFields(
+            @RequestParam String name,
+            @RequestParam String fields,
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        try {
+            List<ProductField> selected = ProductField.parse(fields);
+            ProductField.checkSortable(pageable.getSort());
+            return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                    () -> productService.searchProductFields(name, selected, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/search/cursor")
+    @Operation(summary = "Search products by name with keyset (cursor) pagination")
+    public ResponseEntity<CursorPageDto<ProductDto>> searchProductsAfter(
+            @RequestParam String name,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "productId") String sort,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            return ResponseEntity.ok(productService.searchProductsAfter(name, after, clampPageSize(size), sort, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/category/{categoryId}")
     @Operation(summary = "Get products by category")
-    public ResponseEntity<List<ProductDto>> getProductsByCategory(@PathVariable Long categoryId) {
-        List<ProductDto> products = productService.getProductsByCategory(categoryId);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> getProductsByCategory(
+            @PathVariable Long categoryId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.getProductsByCategory(categoryId));
+    }
+    
+    @GetMapping(value = "/category/{categoryId}", params = "fields")
+    @Operation(summary = "Get selected fields of products by category (sparse fieldset)")
+    public ResponseEntity<List<ProductFieldsRow>> getProductFieldsByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        try {
+            List<ProductField> selected = ProductField.parse(fields);
+            return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                    () -> productService.getProductFieldsByCategory(categoryId, selected));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/low-stock")
     @Operation(summary = "Get low stock products")
-    public ResponseEntity<List<ProductDto>> getLowStockProducts() {
-        List<ProductDto> products = productService.getLowStockProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> getLowStockProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.getLowStockProducts());
+    }
+    
+    @GetMapping("/low-stock/paged")
+    @Operation(summary = "Get low stock products with pagination (largest deficit first by default)")
+    public ResponseEntity<Page<ProductDto>> getLowStockProducts(
+            @PageableDefault(size = 20, sort = {"stockDeficit", "productId"}, direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.getLowStockProducts(pageable));
     }
     
     @GetMapping("/deleted")
     @Operation(summary = "Get all deleted products (admin only)")
-    public ResponseEntity<List<ProductDto>> getDeletedProducts() {
-        List<ProductDto> products = productService.getDeletedProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDto>> getDeletedProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return ETags.conditional(ifNoneMatch, ifModifiedSince, productService.getCatalogVersion(),
+                () -> productService.getDeletedProducts());
     }
     
     @PostMapping
@@ -101,17 +304,60 @@ public class ProductController {
         }
     }
     
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Bulk import products from a JSON array")
+    public ResponseEntity<ImportResultDto> importProductsJson(
+            InputStream body,
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+        try {
+            return ResponseEntity.ok(productImportService.importJson(body, chunkSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @Operation(summary = "Bulk import products from CSV (first line is the header)")
+    public ResponseEntity<ImportResultDto> importProductsCsv(
+            InputStream body,
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+        try {
+            return ResponseEntity.ok(productImportService.importCsv(body, chunkSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing product")
-    public ResponseEntity<ProductDto> updateProduct(@PathVariable Long id, @RequestBody ProductDto productDto) {
+    public ResponseEntity<ProductDto> updateProduct(
+            @PathVariable Long id,
+            @RequestBody ProductDto productDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         System.out.println("=== ProductController.updateProduct called ===");
         System.out.println("Requested ID: " + id);
         System.out.println("Received ProductDto: " + productDto);
         
+        // If-Match: * は存在確認のみ、それ以外は強いETag（バージョン）と一致する場合のみ更新する
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = ETags.versionFromIfMatch(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
+        
         try {
-            ProductDto updatedProduct = productService.updateProduct(id, productDto);
-            System.out.println("Successfully updated product: " + updatedProduct);
-            return ResponseEntity.ok(updatedProduct);
+            ProductCache.Entry updated = productService.updateProduct(id, productDto, expectedVersion);
+            System.out.println("Successfully updated product: " + updated.product());
+            // 保存したバージョンからETagを作る（コミット後に読み直すと後続の更新のバージョンになりうる）
+            return ResponseEntity.ok()
+                    .eTag(ETags.strong(updated.version(), updated.categoryVersion()))
+                    .body(updated.product());
+        } catch (ProductVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (ProductNotFoundException e) {
             System.out.println("Error updating product: " + e.getMessage());
             e.printStackTrace();
@@ -160,6 +406,52 @@ public class ProductController {
         }
     }
     
+    @PostMapping("/bulk-delete")
+    @Operation(summary = "Logically delete products by id list or filter in one statement")
+    public ResponseEntity<BulkOperationResultDto> bulkDeleteProducts(@RequestBody BulkProductRequestDto request) {
+        try {
+            return ResponseEntity.ok(productService.bulkDeleteProducts(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/bulk-restore")
+    @Operation(summary = "Restore logically deleted products by id list or filter in one statement")
+    public ResponseEntity<BulkOperationResultDto> bulkRestoreProducts(@RequestBody BulkProductRequestDto request) {
+        try {
+            return ResponseEntity.ok(productService.bulkRestoreProducts(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/stock-movements")
+    @Operation(summary = "Receive, pick or adjust stock for one or more products by delta in one transaction")
+    public ResponseEntity<StockMovementResultDto> moveStock(@RequestBody StockMovementRequestDto request) {
+        try {
+            return ResponseEntity.ok(productService.moveStock(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ProductNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (InsufficientStockException e) {
+            // 在庫不足の行があれば移動全体を取り消し、原因の商品を返す
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(StockMovementResultDto.builder()
+                    .type(request.getType())
+                    .reference(request.getReference())
+                    .rejection(new BulkOperationResultDto.Rejection(e.getProductId(), e.getMessage()))
+                    .build());
+        } catch (StockLimitExceededException e) {
+            // 在庫数の上限（INTEGER）を超える行も同様に全体を取り消す
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(StockMovementResultDto.builder()
+                    .type(request.getType())
+                    .reference(request.getReference())
+                    .rejection(new BulkOperationResultDto.Rejection(e.getProductId(), e.getMessage()))
+                    .build());
+        }
+    }
+    
     @PostMapping("/{id}/restore")
     @Operation(summary = "Restore a deleted product")
     public ResponseEntity<Map<String, String>> restoreProduct(@PathVariable Long id) {
@@ -173,4 +465,8 @@ public class ProductController {
                     .body(Map.of("error", "Failed to restore product"));
         }
     }
+    
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, 1000));
+    }
 }
@@ -0,0 +1,33 @@
+package com.northwind.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// メッセージコンバータで書き出すレスポンスは Accept によって形式が変わるため、共有キャッシュが
+// 別の形式の表現を返さないよう Vary: Accept を付ける（本文のない304にも付く）
+@ControllerAdvice
+class VaryAcceptResponseAdvice implements ResponseBodyAdvice<Object> {
+    
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+    
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        // CORS の Vary はすでにレスポンスに書かれているため、置き換えずに追加する
+        HttpHeaders headers = response.getHeaders();
+        if (headers.getVary().stream().noneMatch(value -> value.equalsIgnoreCase(HttpHeaders.ACCEPT) || value.equals("*"))) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return body;
+    }
+}
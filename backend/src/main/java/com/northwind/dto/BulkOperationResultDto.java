@@ -0,0 +1,31 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOperationResultDto {
+    
+    @Builder.Default
+    private List<Long> accepted = new ArrayList<>();
+    
+    @Builder.Default
+    private List<Rejection> rejected = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rejection {
+        
+        private Long productId;
+        private String reason;
+    }
+}
@@ -0,0 +1,24 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkProductRequestDto {
+    
+    // 対象の指定（ID一覧とフィルタは併用可能、少なくとも1つは必須）
+    private List<Long> ids;
+    private Long categoryId;
+    private Long supplierId;
+    private Boolean discontinued;
+    
+    // 論理削除時の理由
+    private String reason;
+}
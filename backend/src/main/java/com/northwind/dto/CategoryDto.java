@@ -15,4 +15,9 @@ public class CategoryDto {
     private String name;
     private String description;
     private Integer productCount;
+    
+    // 商品数の内訳（breakdown指定時のみ設定）
+    private Integer activeProductCount;
+    private Integer discontinuedProductCount;
+    private Integer lowStockProductCount;
 }
@@ -0,0 +1,52 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryStatsDto {
+    
+    // 集計した時刻（キャッシュから返した場合も集計時の値）
+    private LocalDateTime computedAt;
+    
+    // 全カテゴリ（未分類を含む）の合計
+    private Row total;
+    
+    @Builder.Default
+    private List<Row> categories = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Row {
+        
+        // 未分類の商品は categoryId・name が null
+        private Long categoryId;
+        private String name;
+        private long productCount;
+        private long discontinuedProductCount;
+        
+        // 販売終了の割合（discontinuedProductCount / productCount）
+        private BigDecimal discontinuedShare;
+        private long unitsInStock;
+        
+        // 在庫評価額（unitPrice * unitsInStock）と原価評価額（unitCost * unitsInStock）
+        private BigDecimal stockValue;
+        private BigDecimal costValue;
+        
+        // 単価と原価がそろっている商品の平均粗利額・平均粗利率（該当なしは null）
+        private BigDecimal averageMargin;
+        private BigDecimal averageMarginRate;
+    }
+}
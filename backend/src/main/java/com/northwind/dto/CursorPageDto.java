@@ -0,0 +1,25 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDto<T> {
+    
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    
+    // 次ページ取得用のカーソル（最終ページの場合はnull）
+    private String nextCursor;
+    
+    // includeTotal指定時のみ設定（COUNTクエリを省略するため）
+    private Long totalElements;
+}
@@ -0,0 +1,52 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportJobDto {
+    
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+    
+    public enum Format { CSV, COLUMNAR }
+    
+    private String jobId;
+    private State state;
+    private List<Format> formats;
+    private boolean gzip;
+    
+    // totalRows は開始時点の件数（走査中の追加・削除により rowsWritten と一致しない場合がある）
+    private Long totalRows;
+    private long rowsWritten;
+    private Double progress;
+    
+    private LocalDateTime requestedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    
+    // 完了後にダウンロードできるファイル
+    @Builder.Default
+    private List<File> files = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class File {
+        
+        private Format format;
+        private String name;
+        private long bytes;
+        private String url;
+    }
+}
@@ -0,0 +1,35 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResultDto {
+    
+    private int totalRows;
+    private int importedRows;
+    private int failedRows;
+    private long elapsedMillis;
+    
+    // 失敗した行（max-errors件まで）
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        
+        // 1始まりのデータ行番号（CSVのヘッダ行は含まない）
+        private int row;
+        private String message;
+    }
+}
@@ -0,0 +1,47 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderDto {
+    
+    private Long customerOrderId;
+    private String status;
+    private LocalDateTime orderDate;
+    private LocalDateTime requiredDate;
+    private LocalDateTime shippedDate;
+    private BigDecimal freight;
+    private String shipName;
+    private String shipAddress;
+    private String shipPostalCode;
+    private String shipPhone;
+    private Long customerId;
+    private Long employeeId;
+    private Long shipperId;
+    
+    @Builder.Default
+    private List<Line> lines = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        
+        private Long orderDetailId;
+        private Long productId;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal discount;
+    }
+}
@@ -0,0 +1,41 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderRequestDto {
+    
+    private Long customerId;
+    private Long employeeId;
+    private Long shipperId;
+    private LocalDateTime requiredDate;
+    private BigDecimal freight;
+    private String shipName;
+    private String shipAddress;
+    private String shipPostalCode;
+    private String shipPhone;
+    
+    private List<Line> lines;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        
+        private Long productId;
+        private Integer quantity;
+        
+        // 割引率（0以上1未満、省略時は0）。単価は受付時の商品価格を使う
+        private BigDecimal discount;
+    }
+}
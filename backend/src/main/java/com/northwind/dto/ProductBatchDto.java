@@ -0,0 +1,38 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductBatchDto {
+    
+    // リクエストと同じ順序（重複したIDもそのまま）で1件ずつ返す
+    @Builder.Default
+    private List<Item> items = new ArrayList<>();
+    
+    // 見つからなかった（存在しない・論理削除済み）ID
+    @Builder.Default
+    private List<Long> notFound = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        
+        private Long productId;
+        private boolean found;
+        
+        // found=false の場合は null
+        private Long version;
+        private ProductDto product;
+    }
+}
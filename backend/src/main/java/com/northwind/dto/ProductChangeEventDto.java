@@ -0,0 +1,31 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangeEventDto {
+    
+    public enum Type {
+        CREATED, UPDATED, DELETED, RESTORED,
+        // 差分を追えない場合（バッファ溢れ・一括登録）は全件の再読み込みを促す
+        RELOAD
+    }
+    
+    private long sequence;
+    private Type type;
+    private Long productId;
+    private Long version;
+    
+    // CREATED / UPDATED / RESTORED の場合のみ設定
+    private ProductDto product;
+    
+    private LocalDateTime occurredAt;
+}
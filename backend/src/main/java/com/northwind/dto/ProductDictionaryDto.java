@@ -0,0 +1,60 @@
+package com.northwind.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// 辞書エンコード形式の商品一覧（カテゴリ・仕入先は一度だけ出力し、各行はIDで参照する）
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductDictionaryDto {
+    
+    @Builder.Default
+    private List<CategorySummaryDto> categories = new ArrayList<>();
+    @Builder.Default
+    private List<SupplierSummaryDto> suppliers = new ArrayList<>();
+    @Builder.Default
+    private List<Row> products = new ArrayList<>();
+    
+    // ページ情報（Page<ProductDto> をエンコードした場合のみ）
+    private Integer number;
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Row {
+        
+        private Long productId;
+        private String name;
+        private String code;
+        private String quantityPerUnit;
+        private BigDecimal unitPrice;
+        private BigDecimal unitCost;
+        private Integer unitsInStock;
+        private Integer reorderLevel;
+        private Boolean discontinued;
+        private Boolean deleted;
+        private LocalDateTime deletedAt;
+        private String deletedBy;
+        private String deletionReason;
+        
+        // categories / suppliers のIDを参照
+        private Long categoryId;
+        private Long supplierId;
+    }
+}
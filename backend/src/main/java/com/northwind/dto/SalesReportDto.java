@@ -0,0 +1,48 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesReportDto {
+    
+    public enum GroupBy { PRODUCT, CATEGORY, SUPPLIER, DAY }
+    
+    private GroupBy groupBy;
+    private LocalDate from;
+    private LocalDate to;
+    
+    // 期間全体の合計（rows を limit で絞った場合も全件の合計）
+    private Row total;
+    
+    @Builder.Default
+    private List<Row> rows = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Row {
+        
+        // 商品・カテゴリ・仕入先のID、または日付（yyyy-MM-dd）。未分類は null
+        private String key;
+        private String name;
+        private long quantity;
+        private BigDecimal revenue;
+        private BigDecimal cost;
+        private BigDecimal margin;
+        
+        // 粗利率（margin / revenue）
+        private BigDecimal marginRate;
+    }
+}
@@ -0,0 +1,41 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockMovementRequestDto {
+    
+    public enum Type {
+        // 入荷（quantity > 0 を加算）
+        RECEIVE,
+        // 出庫・ピッキング（quantity > 0 を減算）
+        PICK,
+        // 棚卸差異などの調整（quantity は符号付き）
+        ADJUST
+    }
+    
+    private Type type;
+    
+    // 伝票番号など（ログ出力用、任意）
+    private String reference;
+    
+    // 複数SKUの移動は1トランザクションで適用され、1行でも在庫が不足すれば全体を取り消す
+    private List<Line> lines;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        
+        private Long productId;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,37 @@
+package com.northwind.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockMovementResultDto {
+    
+    private StockMovementRequestDto.Type type;
+    private String reference;
+    
+    // 商品IDごとに集約した適用結果（商品ID順）
+    @Builder.Default
+    private List<Line> lines = new ArrayList<>();
+    
+    // 在庫不足などで移動全体を取り消した場合のみ設定
+    private BulkOperationResultDto.Rejection rejection;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        
+        private Long productId;
+        private Integer delta;
+        private Integer unitsInStock;
+        private Long version;
+    }
+}
@@ -2,8 +2,12 @@ package com.northwind.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "nw-cities")
 @Table(name = "nw_cities")
 @Getter
 @Setter
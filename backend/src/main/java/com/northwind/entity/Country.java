@@ -2,11 +2,15 @@ package com.northwind.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "nw-countries")
 @Table(name = "nw_countries")
 @Getter
 @Setter
@@ -24,6 +28,7 @@ public class Country extends BaseEntity {
     private String description;
     
     @OneToMany(mappedBy = "country", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "nw-geo-collections")
     @Builder.Default
     private List<Region> regions = new ArrayList<>();
 }
@@ -0,0 +1,99 @@
+package com.northwind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "nw_customer_orders", indexes = {
+    @Index(name = "idx_nw_customer_orders_status", columnList = "status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerOrder extends BaseEntity {
+    
+    public enum Status {
+        // 受付済み（在庫引当済み・未出荷）
+        NEW, SHIPPED, CLOSED, CANCELLED
+    }
+    
+    // 受注をまとめてINSERTできるよう、商品と同じくプール型のシーケンスで採番する
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nw_customer_orders_seq")
+    @SequenceGenerator(name = "nw_customer_orders_seq", sequenceName = "nw_customer_orders_seq", allocationSize = 50)
+    @Column(name = "customer_order_id")
+    private Long customerOrderId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    @Builder.Default
+    private Status status = Status.NEW;
+    
+    @Column(name = "order_date")
+    private LocalDateTime orderDate;
+    
+    @Column(name = "required_date")
+    private LocalDateTime requiredDate;
+    
+    @Column(name = "shipped_date")
+    private LocalDateTime shippedDate;
+    
+    @Column(name = "invoice_date")
+    private LocalDateTime invoiceDate;
+    
+    @Column(name = "close_date")
+    private LocalDateTime closeDate;
+    
+    @Column(name = "freight", precision = 19, scale = 2)
+    private BigDecimal freight;
+    
+    @Column(name = "ship_name")
+    private String shipName;
+    
+    @Column(name = "ship_address")
+    private String shipAddress;
+    
+    @Column(name = "ship_postal_code")
+    private String shipPostalCode;
+    
+    @Column(name = "ship_phone")
+    private String shipPhone;
+    
+    // 顧客・社員・配送業者のエンティティは未実装のため、IDのみ保持する
+    @Column(name = "customer")
+    private Long customerId;
+    
+    @Column(name = "employee")
+    private Long employeeId;
+    
+    @Column(name = "shipper")
+    private Long shipperId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "city", referencedColumnName = "city_id")
+    private City city;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "country", referencedColumnName = "country_id")
+    private Country country;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "region", referencedColumnName = "region_id")
+    private Region region;
+    
+    @OneToMany(mappedBy = "customerOrder", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Builder.Default
+    private List<OrderDetail> details = new ArrayList<>();
+    
+    public void addDetail(OrderDetail detail) {
+        detail.setCustomerOrder(this);
+        details.add(detail);
+    }
+}
@@ -0,0 +1,50 @@
+package com.northwind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "nw_order_details", indexes = {
+    @Index(name = "idx_nw_order_details_product", columnList = "product")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderDetail extends BaseEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nw_order_details_seq")
+    @SequenceGenerator(name = "nw_order_details_seq", sequenceName = "nw_order_details_seq", allocationSize = 50)
+    @Column(name = "order_detail_id")
+    private Long orderDetailId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_order", referencedColumnName = "customer_order_id")
+    private CustomerOrder customerOrder;
+    
+    // 受注の登録時に商品をロードしないよう、外部キーはIDで保持する（product は参照専用）
+    @Column(name = "product")
+    private Long productId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product", referencedColumnName = "product_id", insertable = false, updatable = false)
+    private Product product;
+    
+    @Column(name = "quantity")
+    private Integer quantity;
+    
+    @Column(name = "unit_price", precision = 19, scale = 2)
+    private BigDecimal unitPrice;
+    
+    // 受付時点の商品原価（後から原価が変わっても、売上集計はこの値で原価を計算する）
+    @Column(name = "unit_cost", precision = 19, scale = 2)
+    private BigDecimal unitCost;
+    
+    @Column(name = "discount", precision = 5, scale = 4)
+    @Builder.Default
+    private BigDecimal discount = BigDecimal.ZERO;
+}
@@ -7,7 +7,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "nw_products")
+@Table(name = "nw_products", indexes = {
+    @Index(name = "idx_nw_products_low_stock", columnList = "low_stock, deleted, stock_deficit")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,8 +17,10 @@ import java.time.LocalDateTime;
 @Builder
 public class Product extends BaseEntity {
     
+    // 一括登録時にINSERTをJDBCバッチ化できるよう、IDENTITYではなくプール型のシーケンスで採番する
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nw_products_seq")
+    @SequenceGenerator(name = "nw_products_seq", sequenceName = "nw_products_seq", allocationSize = 50)
     @Column(name = "product_id")
     private Long productId;
     
@@ -41,6 +45,14 @@ public class Product extends BaseEntity {
     @Column(name = "reorder_level")
     private Integer reorderLevel;
     
+    // 在庫不足フラグと不足数（units_in_stock <= reorder_level はインデックスで検索できないため永続化する）
+    @Column(name = "low_stock")
+    @Builder.Default
+    private Boolean lowStock = false;
+    
+    @Column(name = "stock_deficit")
+    private Integer stockDeficit;
+    
     @Column(name = "discontinued")
     @Builder.Default
     private Boolean discontinued = false;
@@ -66,4 +78,16 @@ public class Product extends BaseEntity {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "supplier", referencedColumnName = "supplier_id")
     private Supplier supplier;
+    
+    @PrePersist
+    @PreUpdate
+    void updateStockStatus() {
+        if (unitsInStock != null && reorderLevel != null) {
+            stockDeficit = reorderLevel - unitsInStock;
+            lowStock = unitsInStock <= reorderLevel;
+        } else {
+            stockDeficit = null;
+            lowStock = false;
+        }
+    }
 }
@@ -2,11 +2,15 @@ package com.northwind.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "nw-regions")
 @Table(name = "nw_regions")
 @Getter
 @Setter
@@ -28,6 +32,7 @@ public class Region extends BaseEntity {
     private Country country;
     
     @OneToMany(mappedBy = "region", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "nw-geo-collections")
     @Builder.Default
     private List<City> cities = new ArrayList<>();
 }
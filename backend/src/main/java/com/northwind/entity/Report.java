@@ -0,0 +1,34 @@
+package com.northwind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 集計スナップショットの見出し（明細は nw_sold_product_view）
+@Entity
+@Table(name = "nw_reports")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Report extends BaseEntity {
+    
+    public static final String SALES_ROLLUP = "SALES_ROLLUP";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "report_id")
+    private Long reportId;
+    
+    @Column(name = "type")
+    private String type;
+    
+    @Column(name = "taken_at")
+    private LocalDateTime takenAt;
+    
+    // このIDまでの受注が集計に含まれる（起動時はこれより後の受注だけを再集計する）
+    @Column(name = "through_order_id")
+    private Long throughOrderId;
+}
@@ -0,0 +1,53 @@
+package com.northwind.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// 商品・日ごとの売上集計（Report 単位のスナップショット）
+@Entity
+@Table(name = "nw_sold_product_view", indexes = {
+    @Index(name = "idx_nw_sold_product_view_report", columnList = "report")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SoldProductView extends BaseEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nw_sold_product_view_seq")
+    @SequenceGenerator(name = "nw_sold_product_view_seq", sequenceName = "nw_sold_product_view_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+    
+    @Column(name = "report")
+    private Long reportId;
+    
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+    
+    @Column(name = "product")
+    private Long productId;
+    
+    @Column(name = "product_name")
+    private String productName;
+    
+    @Column(name = "category")
+    private Long categoryId;
+    
+    @Column(name = "supplier")
+    private Long supplierId;
+    
+    @Column(name = "quantity")
+    private Long quantity;
+    
+    @Column(name = "revenue", precision = 19, scale = 2)
+    private BigDecimal revenue;
+    
+    @Column(name = "cost", precision = 19, scale = 2)
+    private BigDecimal cost;
+}
@@ -0,0 +1,8 @@
+package com.northwind.exception;
+
+public class ExportQueueFullException extends RuntimeException {
+    
+    public ExportQueueFullException(int capacity) {
+        super("Export queue is full (" + capacity + " pending exports)");
+    }
+}
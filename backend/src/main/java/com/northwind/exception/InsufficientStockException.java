@@ -0,0 +1,19 @@
+package com.northwind.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InsufficientStockException extends RuntimeException {
+    
+    private final Long productId;
+    private final Integer unitsInStock;
+    private final int delta;
+    
+    public InsufficientStockException(Long productId, Integer unitsInStock, int delta) {
+        super("Insufficient stock for product " + productId + ": " + (unitsInStock != null ? unitsInStock : 0) +
+                " units, requested change " + delta);
+        this.productId = productId;
+        this.unitsInStock = unitsInStock;
+        this.delta = delta;
+    }
+}
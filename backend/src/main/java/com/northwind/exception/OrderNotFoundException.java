@@ -0,0 +1,8 @@
+package com.northwind.exception;
+
+public class OrderNotFoundException extends RuntimeException {
+    
+    public OrderNotFoundException(Long customerOrderId) {
+        super("Order not found with id: " + customerOrderId);
+    }
+}
@@ -0,0 +1,8 @@
+package com.northwind.exception;
+
+public class OrderQueueFullException extends RuntimeException {
+    
+    public OrderQueueFullException(int capacity) {
+        super("Order queue is full (" + capacity + " pending orders)");
+    }
+}
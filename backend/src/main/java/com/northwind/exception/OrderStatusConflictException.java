@@ -0,0 +1,10 @@
+package com.northwind.exception;
+
+import com.northwind.entity.CustomerOrder;
+
+public class OrderStatusConflictException extends RuntimeException {
+    
+    public OrderStatusConflictException(Long customerOrderId, CustomerOrder.Status status, String action) {
+        super("Order " + customerOrderId + " is " + status + " and cannot be " + action);
+    }
+}
@@ -0,0 +1,12 @@
+package com.northwind.exception;
+
+public class ProductVersionConflictException extends RuntimeException {
+    
+    public ProductVersionConflictException(Long productId) {
+        super("Product has been modified by another request: " + productId);
+    }
+    
+    public ProductVersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.northwind.exception;
+
+public class SqlStatementBudgetExceededException extends RuntimeException {
+    
+    public SqlStatementBudgetExceededException(int budget) {
+        super("SQL statement budget exceeded: more than " + budget + " statements in one request");
+    }
+}
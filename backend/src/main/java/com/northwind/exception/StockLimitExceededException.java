@@ -0,0 +1,19 @@
+package com.northwind.exception;
+
+import lombok.Getter;
+
+@Getter
+public class StockLimitExceededException extends RuntimeException {
+    
+    private final Long productId;
+    private final Integer unitsInStock;
+    private final int delta;
+    
+    public StockLimitExceededException(Long productId, Integer unitsInStock, int delta) {
+        super("Stock limit exceeded for product " + productId + ": " + (unitsInStock != null ? unitsInStock : 0) +
+                " units, requested change " + delta + ", maximum " + Integer.MAX_VALUE);
+        this.productId = productId;
+        this.unitsInStock = unitsInStock;
+        this.delta = delta;
+    }
+}
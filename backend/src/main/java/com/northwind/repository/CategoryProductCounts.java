@@ -0,0 +1,19 @@
+package com.northwind.repository;
+
+// カテゴリ別商品数の集計結果（論理削除済み商品は除外）
+public interface CategoryProductCounts {
+    
+    Long getCategoryId();
+    
+    String getName();
+    
+    String getDescription();
+    
+    Long getProductCount();
+    
+    Long getActiveProductCount();
+    
+    Long getDiscontinuedProductCount();
+    
+    Long getLowStockProductCount();
+}
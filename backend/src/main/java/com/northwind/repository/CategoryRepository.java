@@ -1,11 +1,63 @@
 package com.northwind.repository;
 
 import com.northwind.entity.Category;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     
+    // カテゴリはほとんど変更されないため、クエリキャッシュ（2次キャッシュ）を利用する
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Category> findAll();
+    
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Category findByNameIgnoreCase(String name);
+    
+    @Query("SELECT COUNT(c) AS rowCount, SUM(c.version) AS versionSum, MAX(c.modifiedDate) AS lastModified FROM Category c")
+    TableFingerprint fingerprint();
+    
+    // 商品コレクションを初期化せず、1回のGROUP BYで商品数を集計する
+    @Query("SELECT c.categoryId AS categoryId, c.name AS name, c.description AS description, " +
+           "COUNT(p.productId) AS productCount " +
+           "FROM Category c LEFT JOIN c.products p ON p.deleted = false " +
+           "GROUP BY c.categoryId, c.name, c.description " +
+           "ORDER BY c.categoryId")
+    List<CategoryProductCounts> findAllWithProductCounts();
+    
+    // 商品数に加えて、販売中・販売終了・在庫不足の内訳も集計する
+    @Query("SELECT c.categoryId AS categoryId, c.name AS name, c.description AS description, " +
+           "COUNT(p.productId) AS productCount, " +
+           "SUM(CASE WHEN p.discontinued = false THEN 1 ELSE 0 END) AS activeProductCount, " +
+           "SUM(CASE WHEN p.discontinued = true THEN 1 ELSE 0 END) AS discontinuedProductCount, " +
+           "SUM(CASE WHEN p.lowStock = true THEN 1 ELSE 0 END) AS lowStockProductCount " +
+           "FROM Category c LEFT JOIN c.products p ON p.deleted = false " +
+           "GROUP BY c.categoryId, c.name, c.description " +
+           "ORDER BY c.categoryId")
+    List<CategoryProductCounts> findAllWithProductBreakdown();
+    
+    // 在庫評価額・原価評価額・粗利を商品テーブルの1回の集計で求める（商品行をJavaに読み込まない）
+    @Query("SELECT c.categoryId AS categoryId, c.name AS name, " +
+           "COUNT(p.productId) AS productCount, " +
+           "SUM(CASE WHEN p.discontinued = true THEN 1 ELSE 0 END) AS discontinuedProductCount, " +
+           "SUM(COALESCE(p.unitsInStock, 0)) AS unitsInStock, " +
+           "SUM(COALESCE(p.unitPrice, 0) * COALESCE(p.unitsInStock, 0)) AS stockValue, " +
+           "SUM(COALESCE(p.unitCost, 0) * COALESCE(p.unitsInStock, 0)) AS costValue, " +
+           "SUM(CASE WHEN p.unitPrice > 0 AND p.unitCost IS NOT NULL THEN 1 ELSE 0 END) AS marginProductCount, " +
+           "SUM(CASE WHEN p.unitPrice > 0 AND p.unitCost IS NOT NULL THEN p.unitPrice - p.unitCost ELSE 0 END) AS marginSum, " +
+           "SUM(CASE WHEN p.unitPrice > 0 AND p.unitCost IS NOT NULL " +
+           "THEN (p.unitPrice - p.unitCost) * 1.000000 / p.unitPrice ELSE 0 END) AS marginRateSum " +
+           "FROM Product p LEFT JOIN p.category c " +
+           "WHERE p.deleted = false " +
+           "GROUP BY c.categoryId, c.name " +
+           "ORDER BY c.categoryId")
+    List<CategoryStatsRow> findInventoryStats();
 }
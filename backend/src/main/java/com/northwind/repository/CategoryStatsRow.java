@@ -0,0 +1,28 @@
+package com.northwind.repository;
+
+import java.math.BigDecimal;
+
+// カテゴリ別の在庫評価額・粗利の集計結果（論理削除済み商品は除外、未分類は categoryId が null）
+public interface CategoryStatsRow {
+    
+    Long getCategoryId();
+    
+    String getName();
+    
+    Long getProductCount();
+    
+    Long getDiscontinuedProductCount();
+    
+    Long getUnitsInStock();
+    
+    BigDecimal getStockValue();
+    
+    BigDecimal getCostValue();
+    
+    // 単価と原価がそろっている商品の件数と、その粗利額・粗利率の合計（平均はサービスで算出する）
+    Long getMarginProductCount();
+    
+    BigDecimal getMarginSum();
+    
+    BigDecimal getMarginRateSum();
+}
@@ -0,0 +1,22 @@
+package com.northwind.repository;
+
+import com.northwind.entity.CustomerOrder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CustomerOrderRepository extends JpaRepository<CustomerOrder, Long> {
+    
+    @EntityGraph(attributePaths = "details")
+    Optional<CustomerOrder> findWithDetailsByCustomerOrderId(Long customerOrderId);
+    
+    // 状態遷移用: 同じ受注の出荷・キャンセルが同時に走らないよう行ロックを取って読む
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "details")
+    Optional<CustomerOrder> findLockedByCustomerOrderId(Long customerOrderId);
+}
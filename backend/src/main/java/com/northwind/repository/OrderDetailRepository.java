@@ -0,0 +1,44 @@
+package com.northwind.repository;
+
+import com.northwind.entity.CustomerOrder;
+import com.northwind.entity.OrderDetail;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
+    
+    // 指定状態の受注に含まれているか（商品削除前の進行中注文チェック用）
+    boolean existsByProductIdAndCustomerOrderStatus(Long productId, CustomerOrder.Status status);
+    
+    // 指定IDより後の受注明細（売上集計のスナップショット以降の分を再集計する）
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.customerOrderId AS orderId, o.orderDate AS orderDate, d.productId AS productId, " +
+           "p.name AS productName, c.categoryId AS categoryId, s.supplierId AS supplierId, d.unitCost AS unitCost, " +
+           "d.quantity AS quantity, d.unitPrice AS unitPrice, d.discount AS discount " +
+           "FROM OrderDetail d JOIN d.customerOrder o JOIN d.product p LEFT JOIN p.category c LEFT JOIN p.supplier s " +
+           "WHERE o.customerOrderId > :afterOrderId AND o.status <> :excludedStatus ORDER BY o.customerOrderId")
+    Stream<SalesLineRow> streamSalesLinesAfter(@Param("afterOrderId") Long afterOrderId,
+                                               @Param("excludedStatus") CustomerOrder.Status excludedStatus);
+    
+    // スナップショットに含まれる受注のうち、スナップショット後にキャンセルされたものの明細（集計から差し引く）
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.customerOrderId AS orderId, o.orderDate AS orderDate, d.productId AS productId, " +
+           "p.name AS productName, c.categoryId AS categoryId, s.supplierId AS supplierId, d.unitCost AS unitCost, " +
+           "d.quantity AS quantity, d.unitPrice AS unitPrice, d.discount AS discount " +
+           "FROM OrderDetail d JOIN d.customerOrder o JOIN d.product p LEFT JOIN p.category c LEFT JOIN p.supplier s " +
+           "WHERE o.customerOrderId <= :throughOrderId AND o.status = :status AND o.modifiedDate > :since " +
+           "ORDER BY o.customerOrderId")
+    Stream<SalesLineRow> streamSalesLinesChangedSince(@Param("throughOrderId") Long throughOrderId,
+                                                      @Param("status") CustomerOrder.Status status,
+                                                      @Param("since") LocalDateTime since);
+}
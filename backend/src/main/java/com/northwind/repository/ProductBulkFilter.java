@@ -0,0 +1,15 @@
+package com.northwind.repository;
+
+import java.util.List;
+
+// 一括操作の対象条件（指定された条件のAND。idsがnullの場合はID指定なし）
+public record ProductBulkFilter(List<Long> ids, Long categoryId, Long supplierId, Boolean discontinued) {
+    
+    public boolean isEmpty() {
+        return ids == null && categoryId == null && supplierId == null && discontinued == null;
+    }
+    
+    public ProductBulkFilter withIds(List<Long> ids) {
+        return new ProductBulkFilter(ids, categoryId, supplierId, discontinued);
+    }
+}
@@ -0,0 +1,27 @@
+package com.northwind.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+
+// 集合指向の一括論理削除・復元（1件ずつのロード・保存を行わない）
+public interface ProductBulkOperations {
+    
+    // 在庫0かつ未削除で進行中の受注がない商品のみを論理削除し、更新した商品を返す
+    // 対象を行ロック付きで選んでからIDで更新するため、同時に実行された他の一括操作の行は含まれない
+    List<ProductMarkRow> markDeleted(ProductBulkFilter filter, String reason, String user, LocalDateTime now);
+    
+    // 論理削除済みの商品のみを復元し、更新した商品を返す（markDeleted と同じく行ロック→IDで更新）
+    List<ProductMarkRow> markRestored(ProductBulkFilter filter, String user, LocalDateTime now);
+    
+    // deletedがnullの場合は削除状態を問わない
+    List<ProductStateRow> findStates(ProductBulkFilter filter, Boolean deleted);
+    
+    // 在庫数に差分を加算する（units_in_stock = units_in_stock + delta）
+    // 結果が負になる行・削除済みの行は更新せずにそこで止め、更新できた商品IDを返す
+    // 複数トランザクションが同じ順序で行ロックを取るよう、商品ID順に適用する
+    List<Long> addStock(SortedMap<Long, Integer> deltas, String user, LocalDateTime now);
+    
+    List<ProductStockRow> findStock(Collection<Long> productIds);
+}
@@ -0,0 +1,213 @@
+package com.northwind.repository;
+
+import com.northwind.entity.CustomerOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+@RequiredArgsConstructor
+public class ProductBulkOperationsImpl implements ProductBulkOperations {
+    
+    // IN句のパラメータ数の上限
+    private static final int IN_CHUNK_SIZE = 1000;
+    
+    // 進行中の受注に含まれる商品は削除できない（ProductService.validateProductDeletion と同じ規則）
+    private static final String OPEN_ORDERS = "EXISTS (SELECT 1 FROM OrderDetail d " +
+            "WHERE d.productId = p.productId AND d.customerOrder.status = :openStatus)";
+    
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+    
+    private final EntityManager entityManager;
+    
+    @Override
+    public List<ProductMarkRow> markDeleted(ProductBulkFilter filter, String reason, String user, LocalDateTime now) {
+        String guard = " AND p.deleted = false AND (p.unitsInStock IS NULL OR p.unitsInStock <= 0) AND NOT " + OPEN_ORDERS;
+        List<ProductMarkRow> rows = lockCandidates(filter, guard, Map.of("openStatus", CustomerOrder.Status.NEW));
+        String jpql = "UPDATE Product p SET p.deleted = true, p.deletedAt = :now, p.deletedBy = :user, " +
+                "p.deletionReason = :reason, p.modifiedDate = :now, p.modifiedBy = :user, p.version = p.version + 1";
+        Map<String, Object> params = new HashMap<>();
+        params.put("now", now);
+        params.put("user", user);
+        params.put("reason", reason);
+        updateByIds(jpql, rows, params);
+        return rows;
+    }
+    
+    @Override
+    public List<ProductMarkRow> markRestored(ProductBulkFilter filter, String user, LocalDateTime now) {
+        List<ProductMarkRow> rows = lockCandidates(filter, " AND p.deleted = true", Map.of());
+        String jpql = "UPDATE Product p SET p.deleted = false, p.deletedAt = null, p.deletedBy = null, " +
+                "p.deletionReason = null, p.modifiedDate = :now, p.modifiedBy = :user, p.version = p.version + 1";
+        Map<String, Object> params = new HashMap<>();
+        params.put("now", now);
+        params.put("user", user);
+        updateByIds(jpql, rows, params);
+        return rows;
+    }
+    
+    // 一括更新の対象を行ロック（SELECT ... FOR UPDATE）付きで選ぶ。version は更新後の値
+    private List<ProductMarkRow> lockCandidates(ProductBulkFilter filter, String guard, Map<String, Object> params) {
+        String jpql = "SELECT p.productId AS productId, p.name AS name, p.code AS code, p.version + 1 AS version FROM Product p";
+        entityManager.flush();
+        List<ProductMarkRow> rows = new ArrayList<>();
+        for (ProductBulkFilter chunk : chunks(filter)) {
+            TypedQuery<Tuple> query = entityManager.createQuery(jpql + where(chunk) + guard + " ORDER BY p.productId", Tuple.class);
+            bind(query, chunk, params);
+            rows.addAll(toProjections(query.setLockMode(LockModeType.PESSIMISTIC_WRITE), ProductMarkRow.class));
+        }
+        return rows;
+    }
+    
+    private void updateByIds(String jpql, List<ProductMarkRow> rows, Map<String, Object> params) {
+        List<Long> ids = rows.stream().map(ProductMarkRow::getProductId).toList();
+        if (!ids.isEmpty()) {
+            executeUpdate(jpql, "", new ProductBulkFilter(ids, null, null, null), params);
+        }
+    }
+    
+    @Override
+    public List<ProductStateRow> findStates(ProductBulkFilter filter, Boolean deleted) {
+        String jpql = "SELECT p.productId AS productId, p.deleted AS deleted, p.unitsInStock AS unitsInStock, " +
+                "CASE WHEN " + OPEN_ORDERS + " THEN true ELSE false END AS openOrders FROM Product p";
+        Map<String, Object> params = new HashMap<>();
+        params.put("openStatus", CustomerOrder.Status.NEW);
+        String guard = "";
+        if (deleted != null) {
+            guard = " AND p.deleted = :deleted";
+            params.put("deleted", deleted);
+        }
+        List<ProductStateRow> rows = new ArrayList<>();
+        for (ProductBulkFilter chunk : chunks(filter)) {
+            rows.addAll(select(jpql, guard, chunk, params, ProductStateRow.class));
+        }
+        return rows;
+    }
+    
+    @Override
+    public List<Long> addStock(SortedMap<Long, Integer> deltas, String user, LocalDateTime now) {
+        // 読み込み→上書きではなくDB上で加算するため、同時更新でも更新が失われない
+        // low_stock / stock_deficit も Product.updateStockStatus と同じ規則で同じ文の中で更新する
+        // 範囲の判定は BIGINT で計算し、0 未満または INTEGER の上限を超える行は更新しない（オーバーフローさせない）
+        String jpql = "UPDATE Product p SET p.unitsInStock = COALESCE(p.unitsInStock, 0) + :delta, " +
+                "p.stockDeficit = CASE WHEN p.reorderLevel IS NULL THEN NULL " +
+                "ELSE p.reorderLevel - (COALESCE(p.unitsInStock, 0) + :delta) END, " +
+                "p.lowStock = CASE WHEN p.reorderLevel IS NOT NULL " +
+                "AND COALESCE(p.unitsInStock, 0) + :delta <= p.reorderLevel THEN true ELSE false END, " +
+                "p.modifiedDate = :now, p.modifiedBy = :user, p.version = p.version + 1 " +
+                "WHERE p.productId = :productId AND p.deleted = false " +
+                "AND COALESCE(p.unitsInStock, 0) + CAST(:delta AS Long) BETWEEN 0 AND :maxUnits";
+        entityManager.flush();
+        Query query = entityManager.createQuery(jpql);
+        query.setParameter("now", now);
+        query.setParameter("user", user);
+        query.setParameter("maxUnits", (long) Integer.MAX_VALUE);
+        List<Long> updated = new ArrayList<>();
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            query.setParameter("productId", delta.getKey());
+            query.setParameter("delta", delta.getValue());
+            if (query.executeUpdate() == 0) {
+                break;
+            }
+            updated.add(delta.getKey());
+        }
+        entityManager.clear();
+        return updated;
+    }
+    
+    @Override
+    public List<ProductStockRow> findStock(Collection<Long> productIds) {
+        String jpql = "SELECT p.productId AS productId, p.unitsInStock AS unitsInStock, p.version AS version FROM Product p";
+        List<ProductStockRow> rows = new ArrayList<>();
+        for (ProductBulkFilter chunk : chunks(new ProductBulkFilter(List.copyOf(productIds), null, null, null))) {
+            rows.addAll(select(jpql, "", chunk, Map.of(), ProductStockRow.class));
+        }
+        return rows;
+    }
+    
+    private int executeUpdate(String jpql, String guard, ProductBulkFilter filter, Map<String, Object> params) {
+        // 永続化コンテキストとの不整合を避けるため、更新前にflushし更新後にclearする
+        entityManager.flush();
+        int updated = 0;
+        for (ProductBulkFilter chunk : chunks(filter)) {
+            Query query = entityManager.createQuery(jpql + where(chunk) + guard);
+            bind(query, chunk, params);
+            updated += query.executeUpdate();
+        }
+        entityManager.clear();
+        return updated;
+    }
+    
+    private <T> List<T> select(String jpql, String guard, ProductBulkFilter filter, Map<String, Object> params, Class<T> type) {
+        // エイリアス名をキーにしたMapからインターフェース射影を生成する
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql + where(filter) + guard, Tuple.class);
+        bind(query, filter, params);
+        return toProjections(query, type);
+    }
+    
+    private static <T> List<T> toProjections(TypedQuery<Tuple> query, Class<T> type) {
+        return query.getResultList().stream()
+                .map(tuple -> {
+                    Map<String, Object> values = new HashMap<>();
+                    tuple.getElements().forEach(element -> values.put(element.getAlias(), tuple.get(element)));
+                    return PROJECTIONS.createProjection(type, values);
+                })
+                .toList();
+    }
+    
+    private static String where(ProductBulkFilter filter) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        if (filter.ids() != null) {
+            where.append(" AND p.productId IN :ids");
+        }
+        if (filter.categoryId() != null) {
+            where.append(" AND p.category.categoryId = :categoryId");
+        }
+        if (filter.supplierId() != null) {
+            where.append(" AND p.supplier.supplierId = :supplierId");
+        }
+        if (filter.discontinued() != null) {
+            where.append(" AND p.discontinued = :discontinued");
+        }
+        return where.toString();
+    }
+    
+    private static void bind(Query query, ProductBulkFilter filter, Map<String, Object> params) {
+        if (filter.ids() != null) {
+            query.setParameter("ids", filter.ids());
+        }
+        if (filter.categoryId() != null) {
+            query.setParameter("categoryId", filter.categoryId());
+        }
+        if (filter.supplierId() != null) {
+            query.setParameter("supplierId", filter.supplierId());
+        }
+        if (filter.discontinued() != null) {
+            query.setParameter("discontinued", filter.discontinued());
+        }
+        params.forEach(query::setParameter);
+    }
+    
+    private static List<ProductBulkFilter> chunks(ProductBulkFilter filter) {
+        if (filter.ids() == null || filter.ids().size() <= IN_CHUNK_SIZE) {
+            return List.of(filter);
+        }
+        List<ProductBulkFilter> chunks = new ArrayList<>();
+        for (int i = 0; i < filter.ids().size(); i += IN_CHUNK_SIZE) {
+            chunks.add(filter.withIds(filter.ids().subList(i, Math.min(i + IN_CHUNK_SIZE, filter.ids().size()))));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,94 @@
+package com.northwind.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// スパースフィールドセット（?fields=）で指定できる商品のフィールド（名前は ProductDto のプロパティ名と同じ）
+// category / supplier は要求された場合のみ結合し、ID と名前の2列を選択する
+public enum ProductField {
+    
+    PRODUCT_ID("productId", null, "p.productId"),
+    NAME("name", null, "p.name"),
+    CODE("code", null, "p.code"),
+    QUANTITY_PER_UNIT("quantityPerUnit", null, "p.quantityPerUnit"),
+    UNIT_PRICE("unitPrice", null, "p.unitPrice"),
+    UNIT_COST("unitCost", null, "p.unitCost"),
+    UNITS_IN_STOCK("unitsInStock", null, "p.unitsInStock"),
+    REORDER_LEVEL("reorderLevel", null, "p.reorderLevel"),
+    DISCONTINUED("discontinued", null, "p.discontinued"),
+    DELETED("deleted", null, "p.deleted"),
+    DELETED_AT("deletedAt", null, "p.deletedAt"),
+    DELETED_BY("deletedBy", null, "p.deletedBy"),
+    DELETION_REASON("deletionReason", null, "p.deletionReason"),
+    CATEGORY("category", " LEFT JOIN p.category c", "c.categoryId", "c.name"),
+    SUPPLIER("supplier", " LEFT JOIN p.supplier s", "s.supplierId", "s.companyName");
+    
+    private final String fieldName;
+    private final String join;
+    private final String[] columns;
+    
+    ProductField(String fieldName, String join, String... columns) {
+        this.fieldName = fieldName;
+        this.join = join;
+        this.columns = columns;
+    }
+    
+    public String fieldName() {
+        return fieldName;
+    }
+    
+    String join() {
+        return join;
+    }
+    
+    String[] columns() {
+        return columns;
+    }
+    
+    // 入れ子オブジェクト（category / supplier）の場合のプロパティ名
+    String[] nestedNames() {
+        return switch (this) {
+            case CATEGORY -> new String[]{"categoryId", "name"};
+            case SUPPLIER -> new String[]{"supplierId", "companyName"};
+            default -> null;
+        };
+    }
+    
+    // ソートに使えるのは単一列のフィールドのみ
+    String sortPath() {
+        if (join != null) {
+            throw new IllegalArgumentException("Cannot sort by product field: " + fieldName);
+        }
+        return columns[0];
+    }
+    
+    // クエリを組み立てる前に、ソート指定が射影クエリで使えるかを検証する
+    public static void checkSortable(Sort sort) {
+        sort.forEach(order -> of(order.getProperty()).sortPath());
+    }
+    
+    public static ProductField of(String fieldName) {
+        for (ProductField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown product field: " + fieldName);
+    }
+    
+    // カンマ区切りの指定を解釈する。行の識別に使うため productId は常に先頭に含める
+    public static List<ProductField> parse(String fields) {
+        Set<ProductField> parsed = new LinkedHashSet<>();
+        parsed.add(PRODUCT_ID);
+        for (String name : fields.split(",")) {
+            if (!name.isBlank()) {
+                parsed.add(of(name.trim()));
+            }
+        }
+        return new ArrayList<>(parsed);
+    }
+}
@@ -0,0 +1,17 @@
+package com.northwind.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+// スパースフィールドセット用の射影クエリ（要求された列だけを選択し、不要な結合を行わない）
+public interface ProductFieldQueries {
+    
+    // 論理削除されていない商品。name・categoryId が null の場合はその条件で絞り込まない
+    Page<ProductFieldsRow> findFields(List<ProductField> fields, String nameContains, Long categoryId, Pageable pageable);
+    
+    // 指定IDの商品（論理削除済みは除く、順序は不定）
+    List<ProductFieldsRow> findFieldsByIds(List<ProductField> fields, Collection<Long> productIds);
+}
@@ -0,0 +1,100 @@
+package com.northwind.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@RequiredArgsConstructor
+public class ProductFieldQueriesImpl implements ProductFieldQueries {
+    
+    private final EntityManager entityManager;
+    
+    @Override
+    public Page<ProductFieldsRow> findFields(List<ProductField> fields, String nameContains, Long categoryId, Pageable pageable) {
+        StringBuilder where = new StringBuilder(" WHERE p.deleted = false");
+        Map<String, Object> params = new HashMap<>();
+        if (nameContains != null) {
+            // findByNameContainingIgnoreCase と同じく、ワイルドカード文字はエスケープして部分一致させる
+            where.append(" AND LOWER(p.name) LIKE :name ESCAPE '\\'");
+            params.put("name", "%" + nameContains.toLowerCase().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+        if (categoryId != null) {
+            where.append(" AND p.category.categoryId = :categoryId");
+            params.put("categoryId", categoryId);
+        }
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                select(fields) + where + orderBy(pageable.getSort()), Object[].class);
+        params.forEach(query::setParameter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductFieldsRow> rows = toRows(fields, query);
+        // 1ページ目で件数が足りる場合などはCOUNTを発行しない
+        return PageableExecutionUtils.getPage(rows, pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery("SELECT COUNT(p) FROM Product p" + where, Long.class);
+            params.forEach(count::setParameter);
+            return count.getSingleResult();
+        });
+    }
+    
+    @Override
+    public List<ProductFieldsRow> findFieldsByIds(List<ProductField> fields, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                select(fields) + " WHERE p.productId IN :ids AND p.deleted = false", Object[].class);
+        query.setParameter("ids", productIds);
+        return toRows(fields, query);
+    }
+    
+    private static String select(List<ProductField> fields) {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder joins = new StringBuilder();
+        for (ProductField field : fields) {
+            for (String column : field.columns()) {
+                columns.append(columns.isEmpty() ? "SELECT " : ", ").append(column);
+            }
+            if (field.join() != null) {
+                joins.append(field.join());
+            }
+        }
+        return columns + " FROM Product p" + joins;
+    }
+    
+    // ソートは単一列のフィールドのみ受け付け、ページ境界が安定するよう最後に productId を加える
+    private static String orderBy(Sort sort) {
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        boolean byProductId = false;
+        for (Sort.Order order : sort) {
+            String path = ProductField.of(order.getProperty()).sortPath();
+            orderBy.append(path).append(order.isAscending() ? " ASC" : " DESC").append(", ");
+            byProductId |= path.equals("p.productId");
+        }
+        if (byProductId) {
+            return orderBy.substring(0, orderBy.length() - 2);
+        }
+        return orderBy.append("p.productId").toString();
+    }
+    
+    private List<ProductFieldsRow> toRows(List<ProductField> fields, TypedQuery<Object[]> query) {
+        List<ProductField> rowFields = List.copyOf(fields);
+        return query.setHint(HINT_READ_ONLY, true)
+                .getResultList()
+                .stream()
+                .map(values -> new ProductFieldsRow(rowFields, values))
+                .toList();
+    }
+}
@@ -0,0 +1,61 @@
+package com.northwind.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+// スパースフィールドセットの1行。クエリ結果の配列をそのまま保持し、要求されたフィールドだけを直接JSONに書き出す
+// （エンティティ・DTOを経由しない）
+@JsonSerialize(using = ProductFieldsRow.Serializer.class)
+public final class ProductFieldsRow {
+    
+    private final List<ProductField> fields;
+    private final Object[] values;
+    
+    ProductFieldsRow(List<ProductField> fields, Object[] values) {
+        this.fields = fields;
+        this.values = values;
+    }
+    
+    // productId は常に先頭の列
+    public Long getProductId() {
+        return (Long) values[0];
+    }
+    
+    static final class Serializer extends StdSerializer<ProductFieldsRow> {
+        
+        Serializer() {
+            super(ProductFieldsRow.class);
+        }
+        
+        @Override
+        public void serialize(ProductFieldsRow row, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            int column = 0;
+            for (ProductField field : row.fields) {
+                String[] nestedNames = field.nestedNames();
+                if (nestedNames == null) {
+                    provider.defaultSerializeField(field.fieldName(), row.values[column++], gen);
+                    continue;
+                }
+                // 結合先が存在しない場合（IDがnull）は ProductDto と同様に null を出力する
+                gen.writeFieldName(field.fieldName());
+                if (row.values[column] == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeStartObject();
+                    for (int i = 0; i < nestedNames.length; i++) {
+                        provider.defaultSerializeField(nestedNames[i], row.values[column + i], gen);
+                    }
+                    gen.writeEndObject();
+                }
+                column += nestedNames.length;
+            }
+            gen.writeEndObject();
+        }
+    }
+}
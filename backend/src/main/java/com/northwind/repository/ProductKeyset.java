@@ -0,0 +1,5 @@
+package com.northwind.repository;
+
+// キーセットページングの位置: 前ページ最終行のソートキーの値と商品ID（value が null の場合はソートキーが null の行）
+public record ProductKeyset(Object value, Long productId) {
+}
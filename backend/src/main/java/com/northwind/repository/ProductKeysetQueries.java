@@ -0,0 +1,14 @@
+package com.northwind.repository;
+
+import com.northwind.entity.Product;
+
+import java.util.List;
+
+// キーセット（シーク）ページング: 深いページでもOFFSETによる読み飛ばしとCOUNTを行わない
+// ソートキーが null の行は最後に並べ（NULLS LAST）、位置の比較でも null を値と区別する
+public interface ProductKeysetQueries {
+    
+    // 論理削除されていない商品を (sortKey, productId) の昇順で最大 limit 件（category/supplier はフェッチ結合）
+    // nameContains が null の場合は絞り込まず、after が null の場合は先頭から
+    List<Product> findAfter(String nameContains, String sortKey, ProductKeyset after, int limit);
+}
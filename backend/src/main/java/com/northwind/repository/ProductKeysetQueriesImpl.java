@@ -0,0 +1,56 @@
+package com.northwind.repository;
+
+import com.northwind.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductKeysetQueriesImpl implements ProductKeysetQueries {
+    
+    private final EntityManager entityManager;
+    
+    @Override
+    public List<Product> findAfter(String nameContains, String sortKey, ProductKeyset after, int limit) {
+        String path = sortPath(sortKey);
+        StringBuilder jpql = new StringBuilder(
+                "SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE p.deleted = false");
+        Map<String, Object> params = new HashMap<>();
+        if (nameContains != null) {
+            // findByNameContainingIgnoreCase と同じく、ワイルドカード文字はエスケープして部分一致させる
+            jpql.append(" AND LOWER(p.name) LIKE :name ESCAPE '\\'");
+            params.put("name", "%" + nameContains.toLowerCase().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+        if (after != null) {
+            params.put("afterId", after.productId());
+            if (path.equals("p.productId")) {
+                jpql.append(" AND p.productId > :afterId");
+            } else if (after.value() == null) {
+                // null の行は末尾にまとまっているため、残りは null の行の続きだけ
+                jpql.append(" AND ").append(path).append(" IS NULL AND p.productId > :afterId");
+            } else {
+                jpql.append(" AND (").append(path).append(" > :afterValue")
+                        .append(" OR (").append(path).append(" = :afterValue AND p.productId > :afterId)")
+                        .append(" OR ").append(path).append(" IS NULL)");
+                params.put("afterValue", after.value());
+            }
+        }
+        jpql.append(path.equals("p.productId")
+                ? " ORDER BY p.productId"
+                : " ORDER BY " + path + " ASC NULLS LAST, p.productId ASC");
+        TypedQuery<Product> query = entityManager.createQuery(jpql.toString(), Product.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+    
+    private static String sortPath(String sortKey) {
+        return switch (sortKey) {
+            case "productId", "name", "code", "unitPrice" -> "p." + sortKey;
+            default -> throw new IllegalArgumentException("Unsupported sort key: " + sortKey);
+        };
+    }
+}
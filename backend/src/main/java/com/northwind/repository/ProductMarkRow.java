@@ -0,0 +1,7 @@
+package com.northwind.repository;
+
+// 一括論理削除・復元で更新した商品（検索インデックス更新用の列と、更新後のバージョン）
+public interface ProductMarkRow extends ProductSearchRow {
+    
+    Long getVersion();
+}
@@ -1,41 +1,97 @@
 package com.northwind.repository;
 
 import com.northwind.entity.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductBulkOperations, ProductFieldQueries,
+        ProductKeysetQueries {
+    
+    int STREAM_FETCH_SIZE = 500;
+    
+    // DTO変換でcategory/supplierを参照するため、一覧系はすべて同一SELECTでフェッチする（N+1回避）
+    // Page系のカウントクエリはフェッチ結合なしで別途発行される
+    @Override
+    @EntityGraph(attributePaths = {"category", "supplier"})
+    Optional<Product> findById(Long id);
     
     // 論理削除されていない商品のみを取得
+    @EntityGraph(attributePaths = {"category", "supplier"})
     List<Product> findByDeletedFalse();
     
+    @EntityGraph(attributePaths = {"category", "supplier"})
     Page<Product> findByDeletedFalse(Pageable pageable);
     
+    long countByDeletedFalse();
+    
+    long countByNameContainingIgnoreCaseAndDeletedFalse(String name);
+    
+    // 全件をメモリに載せずに1行ずつ処理するためのストリーム（呼び出し側でトランザクション必須）
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier " +
+           "WHERE p.deleted = false ORDER BY p.productId")
+    Stream<Product> streamByDeletedFalse();
+    
+    // 検索インデックス構築用（名前とコードのみ）
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("SELECT p.productId AS productId, p.name AS name, p.code AS code FROM Product p WHERE p.deleted = false")
+    Stream<ProductSearchRow> streamSearchRows();
+    
+    @EntityGraph(attributePaths = {"category", "supplier"})
+    List<Product> findByProductIdIn(Collection<Long> productIds);
+    
+    @EntityGraph(attributePaths = {"category", "supplier"})
     List<Product> findByDiscontinuedFalseAndDeletedFalse();
     
+    @EntityGraph(attributePaths = {"category", "supplier"})
     Page<Product> findByNameContainingIgnoreCaseAndDeletedFalse(String name, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "supplier"})
     @Query("SELECT p FROM Product p WHERE p.category.categoryId = :categoryId AND p.deleted = false")
     List<Product> findByCategoryId(@Param("categoryId") Long categoryId);
     
+    @EntityGraph(attributePaths = {"category", "supplier"})
     @Query("SELECT p FROM Product p WHERE p.supplier.supplierId = :supplierId AND p.deleted = false")
     List<Product> findBySupplierId(@Param("supplierId") Long supplierId);
     
-    @Query("SELECT p FROM Product p WHERE p.unitsInStock <= p.reorderLevel AND p.deleted = false")
+    @EntityGraph(attributePaths = {"category", "supplier"})
+    @Query("SELECT p FROM Product p WHERE p.lowStock = true AND p.deleted = false ORDER BY p.stockDeficit DESC, p.productId")
     List<Product> findLowStockProducts();
     
+    // idx_nw_products_low_stock を使って在庫不足の商品だけを走査する
+    @EntityGraph(attributePaths = {"category", "supplier"})
+    Page<Product> findByLowStockTrueAndDeletedFalse(Pageable pageable);
+    
     // 削除済み商品を取得（管理用）
+    @EntityGraph(attributePaths = {"category", "supplier"})
     List<Product> findByDeletedTrue();
     
+    @EntityGraph(attributePaths = {"category", "supplier"})
     Page<Product> findByDeletedTrue(Pageable pageable);
     
+    @Query("SELECT new com.northwind.repository.ProductVersion(p.version, COALESCE(c.version, 0)) " +
+            "FROM Product p LEFT JOIN p.category c WHERE p.productId = :productId AND p.deleted = false")
+    Optional<ProductVersion> findActiveVersion(@Param("productId") Long productId);
+    
     // 商品IDで削除済みかどうかをチェック
     @Query("SELECT p.deleted FROM Product p WHERE p.productId = :productId")
     Boolean isDeleted(@Param("productId") Long productId);
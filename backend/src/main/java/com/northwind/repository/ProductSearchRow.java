@@ -0,0 +1,11 @@
+package com.northwind.repository;
+
+// 検索インデックス構築用の軽量な射影
+public interface ProductSearchRow {
+    
+    Long getProductId();
+    
+    String getName();
+    
+    String getCode();
+}
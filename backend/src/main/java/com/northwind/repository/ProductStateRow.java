@@ -0,0 +1,14 @@
+package com.northwind.repository;
+
+// 一括操作で対象外となった理由を判定するための射影
+public interface ProductStateRow {
+    
+    Long getProductId();
+    
+    Boolean getDeleted();
+    
+    Integer getUnitsInStock();
+    
+    // 進行中（NEW）の受注に含まれているか
+    Boolean getOpenOrders();
+}
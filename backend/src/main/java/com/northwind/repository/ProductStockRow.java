@@ -0,0 +1,11 @@
+package com.northwind.repository;
+
+// 在庫移動の適用後の在庫数とバージョン
+public interface ProductStockRow {
+    
+    Long getProductId();
+    
+    Integer getUnitsInStock();
+    
+    Long getVersion();
+}
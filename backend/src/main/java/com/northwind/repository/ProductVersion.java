@@ -0,0 +1,5 @@
+package com.northwind.repository;
+
+// 単一商品のETag用: 商品のバージョンと、DTOに埋め込まれるカテゴリのバージョン（カテゴリなしは0）
+public record ProductVersion(long version, long categoryVersion) {
+}
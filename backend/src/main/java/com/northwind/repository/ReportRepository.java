@@ -0,0 +1,20 @@
+package com.northwind.repository;
+
+import com.northwind.entity.Report;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReportRepository extends JpaRepository<Report, Long> {
+    
+    Optional<Report> findFirstByTypeOrderByReportIdDesc(String type);
+    
+    @Modifying
+    @Query("DELETE FROM Report r WHERE r.type = :type AND r.reportId <> :reportId")
+    int deleteOtherReports(@Param("type") String type, @Param("reportId") Long reportId);
+}
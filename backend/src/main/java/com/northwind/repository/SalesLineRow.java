@@ -0,0 +1,29 @@
+package com.northwind.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// 売上集計の再構築用に、受注明細と商品の属性を1行にまとめた射影
+public interface SalesLineRow {
+    
+    Long getOrderId();
+    
+    LocalDateTime getOrderDate();
+    
+    Long getProductId();
+    
+    String getProductName();
+    
+    Long getCategoryId();
+    
+    Long getSupplierId();
+    
+    // 受付時点の原価（受注明細に保存した値）
+    BigDecimal getUnitCost();
+    
+    Integer getQuantity();
+    
+    BigDecimal getUnitPrice();
+    
+    BigDecimal getDiscount();
+}
@@ -0,0 +1,30 @@
+package com.northwind.repository;
+
+import com.northwind.entity.SoldProductView;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface SoldProductViewRepository extends JpaRepository<SoldProductView, Long> {
+    
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT v FROM SoldProductView v WHERE v.reportId = :reportId")
+    Stream<SoldProductView> streamByReportId(@Param("reportId") Long reportId);
+    
+    @Modifying
+    @Query("DELETE FROM SoldProductView v WHERE v.reportId <> :reportId")
+    int deleteOtherReports(@Param("reportId") Long reportId);
+}
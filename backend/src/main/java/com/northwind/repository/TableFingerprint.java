@@ -0,0 +1,13 @@
+package com.northwind.repository;
+
+import java.time.LocalDateTime;
+
+// テーブル全体の変更検出用の集計値（行の追加・更新でいずれかが必ず変化する）
+public interface TableFingerprint {
+    
+    Long getRowCount();
+    
+    Long getVersionSum();
+    
+    LocalDateTime getLastModified();
+}
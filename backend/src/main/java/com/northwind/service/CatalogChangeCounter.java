@@ -0,0 +1,50 @@
+package com.northwind.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// 商品一覧の変更検出用のカウンタ（条件付きGETのETag / Last-Modified に使う）
+// 商品の書き込みはすべて変更フィードに流れるため、テーブルを集計せずにフィードへの発行を数える
+// 起動ごとにカウンタが0に戻るため、起動時刻（epoch）もETagに含めて別プロセスの値と一致しないようにする
+@Component
+@RequiredArgsConstructor
+public class CatalogChangeCounter {
+    
+    private final ProductChangeFeed productChangeFeed;
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicReference<Version> current = new AtomicReference<>(new Version(epoch, 0, Instant.now()));
+    
+    // lastModified は最後に変更を数えた時刻（読み取った時点と同じ秒の場合は null）
+    public record Version(long epoch, long changes, Instant lastModified) {
+    }
+    
+    @PostConstruct
+    void register() {
+        productChangeFeed.addListener(event -> changed());
+    }
+    
+    public Version current() {
+        Version version = current.get();
+        // Last-Modified は秒単位のため、同じ秒のうちの後続の変更を If-Modified-Since で見逃さないよう、
+        // 変更のあった秒が過ぎるまでは更新日時を返さない
+        if (!version.lastModified().isBefore(Instant.now().truncatedTo(ChronoUnit.SECONDS))) {
+            return new Version(version.epoch(), version.changes(), null);
+        }
+        return version;
+    }
+    
+    public void changed() {
+        Instant now = Instant.now();
+        current.updateAndGet(version -> new Version(epoch, version.changes() + 1,
+                now.isAfter(version.lastModified()) ? now : version.lastModified()));
+    }
+    
+    public void changedAfterCommit() {
+        TransactionCallbacks.afterCommit(this::changed);
+    }
+}
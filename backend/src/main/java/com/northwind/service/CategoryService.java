@@ -1,12 +1,21 @@
 package com.northwind.service;
 
 import com.northwind.dto.CategoryDto;
+import com.northwind.dto.CategoryStatsDto;
 import com.northwind.entity.Category;
+import com.northwind.repository.CategoryProductCounts;
 import com.northwind.repository.CategoryRepository;
+import com.northwind.repository.CategoryStatsRow;
+import com.northwind.repository.TableFingerprint;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,19 +26,121 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final CategoryStatsCache categoryStatsCache;
+    private final CatalogChangeCounter catalogChangeCounter;
+    private final ProductCache productCache;
 
     public List<CategoryDto> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
-        return categories.stream()
-                .map(category -> {
-                    CategoryDto dto = categoryMapper.toDto(category);
-                    // 商品数を設定
-                    dto.setProductCount(category.getProducts() != null ? category.getProducts().size() : 0);
+        return getAllCategories(false);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryDto> getAllCategories(boolean withBreakdown) {
+        List<CategoryProductCounts> counts = withBreakdown
+                ? categoryRepository.findAllWithProductBreakdown()
+                : categoryRepository.findAllWithProductCounts();
+        return counts.stream()
+                .map(row -> {
+                    CategoryDto dto = CategoryDto.builder()
+                            .categoryId(row.getCategoryId())
+                            .name(row.getName())
+                            .description(row.getDescription())
+                            .productCount(toInt(row.getProductCount()))
+                            .build();
+                    if (withBreakdown) {
+                        dto.setActiveProductCount(toInt(row.getActiveProductCount()));
+                        dto.setDiscontinuedProductCount(toInt(row.getDiscontinuedProductCount()));
+                        dto.setLowStockProductCount(toInt(row.getLowStockProductCount()));
+                    }
                     return dto;
                 })
                 .collect(Collectors.toList());
     }
 
+    private static Integer toInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
+
+    // カテゴリ別の在庫評価額・粗利・販売終了率（商品・カテゴリの変更まではキャッシュから返す）
+    // キャッシュヒット時に接続を取得しないよう、トランザクションは集計クエリ（リポジトリ）側でのみ開始する
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CategoryStatsDto getCategoryStats() {
+        return categoryStatsCache.get(this::computeCategoryStats);
+    }
+
+    private CategoryStatsDto computeCategoryStats() {
+        List<CategoryStatsRow> rows = categoryRepository.findInventoryStats();
+        long productCount = 0;
+        long discontinuedProductCount = 0;
+        long unitsInStock = 0;
+        BigDecimal stockValue = BigDecimal.ZERO;
+        BigDecimal costValue = BigDecimal.ZERO;
+        long marginProductCount = 0;
+        BigDecimal marginSum = BigDecimal.ZERO;
+        BigDecimal marginRateSum = BigDecimal.ZERO;
+        List<CategoryStatsDto.Row> categories = new ArrayList<>(rows.size());
+        for (CategoryStatsRow row : rows) {
+            categories.add(toStatsRow(row.getCategoryId(), row.getName(), toLong(row.getProductCount()),
+                    toLong(row.getDiscontinuedProductCount()), toLong(row.getUnitsInStock()),
+                    orZero(row.getStockValue()), orZero(row.getCostValue()), toLong(row.getMarginProductCount()),
+                    orZero(row.getMarginSum()), orZero(row.getMarginRateSum())));
+            productCount += toLong(row.getProductCount());
+            discontinuedProductCount += toLong(row.getDiscontinuedProductCount());
+            unitsInStock += toLong(row.getUnitsInStock());
+            stockValue = stockValue.add(orZero(row.getStockValue()));
+            costValue = costValue.add(orZero(row.getCostValue()));
+            marginProductCount += toLong(row.getMarginProductCount());
+            marginSum = marginSum.add(orZero(row.getMarginSum()));
+            marginRateSum = marginRateSum.add(orZero(row.getMarginRateSum()));
+        }
+        return CategoryStatsDto.builder()
+                .computedAt(LocalDateTime.now())
+                .total(toStatsRow(null, null, productCount, discontinuedProductCount, unitsInStock,
+                        stockValue, costValue, marginProductCount, marginSum, marginRateSum))
+                .categories(categories)
+                .build();
+    }
+
+    private static CategoryStatsDto.Row toStatsRow(Long categoryId, String name, long productCount,
+                                                   long discontinuedProductCount, long unitsInStock,
+                                                   BigDecimal stockValue, BigDecimal costValue,
+                                                   long marginProductCount, BigDecimal marginSum,
+                                                   BigDecimal marginRateSum) {
+        BigDecimal marginCount = BigDecimal.valueOf(marginProductCount);
+        return CategoryStatsDto.Row.builder()
+                .categoryId(categoryId)
+                .name(name)
+                .productCount(productCount)
+                .discontinuedProductCount(discontinuedProductCount)
+                .discontinuedShare(productCount > 0
+                        ? BigDecimal.valueOf(discontinuedProductCount).divide(BigDecimal.valueOf(productCount), 4, RoundingMode.HALF_UP)
+                        : null)
+                .unitsInStock(unitsInStock)
+                .stockValue(stockValue.setScale(2, RoundingMode.HALF_UP))
+                .costValue(costValue.setScale(2, RoundingMode.HALF_UP))
+                .averageMargin(marginProductCount > 0 ? marginSum.divide(marginCount, 2, RoundingMode.HALF_UP) : null)
+                .averageMarginRate(marginProductCount > 0 ? marginRateSum.divide(marginCount, 4, RoundingMode.HALF_UP) : null)
+                .build();
+    }
+
+    private static long toLong(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    // 条件付きGET用: カテゴリ一覧は商品数を含むため、商品の変更（getCatalogVersion）も合わせて検出する
+    @Transactional(readOnly = true)
+    public TableFingerprint getCategoryFingerprint() {
+        return categoryRepository.fingerprint();
+    }
+    
+    public CatalogChangeCounter.Version getCatalogVersion() {
+        return catalogChangeCounter.current();
+    }
+
     public CategoryDto getCategoryById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
@@ -47,7 +158,12 @@ public class CategoryService {
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
         
         categoryMapper.updateEntity(categoryDto, existingCategory);
-        Category updatedCategory = categoryRepository.save(existingCategory);
+        // flushしてインクリメント後のバージョンを確定させる
+        Category updatedCategory = categoryRepository.saveAndFlush(existingCategory);
+        categoryStatsCache.invalidateAfterCommit();
+        // 商品DTOにはカテゴリ名が含まれるため、商品一覧の変更として数え、キャッシュ済みの商品DTOも無効にする
+        catalogChangeCounter.changedAfterCommit();
+        productCache.invalidateCategoryAfterCommit(id, updatedCategory.getVersion());
         return categoryMapper.toDto(updatedCategory);
     }
 
@@ -56,5 +172,8 @@ public class CategoryService {
             throw new RuntimeException("Category not found with id: " + id);
         }
         categoryRepository.deleteById(id);
+        categoryStatsCache.invalidateAfterCommit();
+        catalogChangeCounter.changedAfterCommit();
+        productCache.invalidateCategoryAfterCommit(id, Long.MAX_VALUE);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.northwind.service;
+
+import com.northwind.dto.CategoryStatsDto;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// カテゴリ別在庫統計の単一エントリキャッシュ
+// 商品の書き込みはすべて変更フィードに流れるため、フィードへの発行を無効化のきっかけにする
+// 無効化後の最初の参照で1回だけ再集計し、集計中に無効化された結果は次の参照で捨てる
+// 再集計中の同時の参照は待たずに前回の結果を返す（初回のみ集計結果を待つ）
+@Component
+@RequiredArgsConstructor
+public class CategoryStatsCache {
+    
+    private final ProductChangeFeed productChangeFeed;
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+    
+    private record Snapshot(long generation, CategoryStatsDto stats) {
+    }
+    
+    @PostConstruct
+    void register() {
+        productChangeFeed.addListener(event -> invalidate());
+    }
+    
+    public CategoryStatsDto get(Supplier<CategoryStatsDto> loader) {
+        Snapshot current = snapshot;
+        if (current != null && current.generation() == generation.get()) {
+            return current.stats();
+        }
+        if (current == null) {
+            loadLock.lock();
+        } else if (!loadLock.tryLock()) {
+            // 他のスレッドが再集計中のため、前回の結果を返す
+            return current.stats();
+        }
+        try {
+            long expected = generation.get();
+            current = snapshot;
+            if (current != null && current.generation() == expected) {
+                return current.stats();
+            }
+            CategoryStatsDto stats = loader.get();
+            snapshot = new Snapshot(expected, stats);
+            return stats;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+    
+    public void invalidateAfterCommit() {
+        TransactionCallbacks.afterCommit(this::invalidate);
+    }
+}
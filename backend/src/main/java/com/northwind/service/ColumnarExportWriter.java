@@ -0,0 +1,178 @@
+package com.northwind.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 列指向のバイナリ形式（.nwc）。row-group-size 行ごとに列単位でまとめて書き出す
+//
+//   ヘッダ   : "NWC1" / 列数(int) / 列ごとに 型(byte)・名前(short長 + UTF-8)
+//   行グループ: 行数(int) / 列ごとに バイト長(int)・NULLビットマップ・値
+//              LONG は直前の値との差分、INT・DECIMAL（小数2桁の整数）はそのまま、いずれも zigzag varint
+//              BOOLEAN は行位置に対応するビット列、STRING は varint 長 + UTF-8
+//   フッタ   : 行グループ数(int) / グループごとに 開始位置(long)・行数(int) / 総行数(long)
+//   末尾     : フッタの開始位置(long) / "NWC1"
+// 整数は big-endian。NULL の値はビットマップのみで表し、値の領域には書かない
+final class ColumnarExportWriter implements ProductExportWriter {
+    
+    private static final byte[] MAGIC = "NWC1".getBytes(StandardCharsets.US_ASCII);
+    
+    private final FileChannel file;
+    private final int rowGroupSize;
+    private final ProductExportColumn[] columns = ProductExportColumn.values();
+    private final ColumnChunk[] chunks;
+    private final List<long[]> rowGroups = new ArrayList<>();
+    private int rows;
+    private long totalRows;
+    
+    // 1列分の行グループ内のデータ（ビットマップと値を別々に溜める）
+    private static final class ColumnChunk {
+        
+        final byte[] nulls;
+        // BOOLEAN 列の値（行位置に対応するビット列）。それ以外の列は null
+        final byte[] bits;
+        ByteBuffer values = ByteBuffer.allocate(1024);
+        long previous;
+        
+        ColumnChunk(int rowGroupSize, boolean bitPacked) {
+            this.nulls = new byte[(rowGroupSize + 7) / 8];
+            this.bits = bitPacked ? new byte[nulls.length] : null;
+        }
+        
+        void reset(int rowCount) {
+            Arrays.fill(nulls, 0, (rowCount + 7) / 8, (byte) 0);
+            if (bits != null) {
+                Arrays.fill(bits, 0, (rowCount + 7) / 8, (byte) 0);
+            }
+            values.clear();
+            previous = 0;
+        }
+        
+        void ensure(int bytes) {
+            if (values.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(values.capacity() * 2, values.position() + bytes));
+                values.flip();
+                grown.put(values);
+                values = grown;
+            }
+        }
+        
+        void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                values.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            values.put((byte) value);
+        }
+        
+        void putZigZag(long value) {
+            putVarLong((value << 1) ^ (value >> 63));
+        }
+    }
+    
+    ColumnarExportWriter(FileChannel file, int rowGroupSize) throws IOException {
+        this.file = file;
+        this.rowGroupSize = rowGroupSize;
+        this.chunks = new ColumnChunk[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            chunks[i] = new ColumnChunk(rowGroupSize, columns[i].type() == ProductExportColumn.Type.BOOLEAN);
+        }
+        ByteBuffer header = ByteBuffer.allocate(256 * columns.length + 16);
+        header.put(MAGIC).putInt(columns.length);
+        for (ProductExportColumn column : columns) {
+            byte[] name = column.header().getBytes(StandardCharsets.UTF_8);
+            header.put((byte) column.type().ordinal()).putShort((short) name.length).put(name);
+        }
+        writeFully(header.flip());
+    }
+    
+    @Override
+    public void write(Object[] row) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            ColumnChunk chunk = chunks[i];
+            Object value = row[i];
+            if (value == null) {
+                chunk.nulls[rows >>> 3] |= (byte) (1 << (rows & 7));
+                continue;
+            }
+            switch (columns[i].type()) {
+                case LONG -> {
+                    long current = ((Number) value).longValue();
+                    chunk.putZigZag(current - chunk.previous);
+                    chunk.previous = current;
+                }
+                case INT -> chunk.putZigZag(((Number) value).longValue());
+                case DECIMAL -> chunk.putZigZag(((BigDecimal) value)
+                        .setScale(ProductExportColumn.DECIMAL_SCALE, RoundingMode.HALF_UP)
+                        .unscaledValue().longValueExact());
+                case BOOLEAN -> {
+                    if ((Boolean) value) {
+                        chunk.bits[rows >>> 3] |= (byte) (1 << (rows & 7));
+                    }
+                }
+                case STRING -> {
+                    byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    chunk.putVarLong(bytes.length);
+                    chunk.ensure(bytes.length);
+                    chunk.values.put(bytes);
+                }
+            }
+        }
+        if (++rows == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+    
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        rowGroups.add(new long[]{file.position(), rows});
+        writeFully(ByteBuffer.allocate(4).putInt(rows).flip());
+        int bitmapBytes = (rows + 7) / 8;
+        for (ColumnChunk chunk : chunks) {
+            if (chunk.bits != null) {
+                chunk.ensure(bitmapBytes);
+                chunk.values.put(chunk.bits, 0, bitmapBytes);
+            }
+            chunk.values.flip();
+            writeFully(ByteBuffer.allocate(4).putInt(bitmapBytes + chunk.values.remaining()).flip());
+            writeFully(ByteBuffer.wrap(chunk.nulls, 0, bitmapBytes));
+            writeFully(chunk.values);
+            chunk.reset(rows);
+        }
+        totalRows += rows;
+        rows = 0;
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        flushRowGroup();
+        long footerOffset = file.position();
+        ByteBuffer footer = ByteBuffer.allocate(4 + rowGroups.size() * 12 + 8 + 8 + MAGIC.length);
+        footer.putInt(rowGroups.size());
+        for (long[] rowGroup : rowGroups) {
+            footer.putLong(rowGroup[0]).putInt((int) rowGroup[1]);
+        }
+        footer.putLong(totalRows).putLong(footerOffset).put(MAGIC);
+        writeFully(footer.flip());
+    }
+    
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
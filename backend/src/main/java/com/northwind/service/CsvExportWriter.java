@@ -0,0 +1,126 @@
+package com.northwind.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+// RFC 4180 形式のCSV。1行分の文字列を固定長のバイトバッファへ直接エンコードし、満杯になったらチャネルへ書く
+final class CsvExportWriter implements ProductExportWriter {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final FileChannel file;
+    private final WritableByteChannel out;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(256);
+    
+    CsvExportWriter(FileChannel file, boolean gzip) throws IOException {
+        this.file = file;
+        this.out = gzip
+                ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE))
+                : file;
+        for (ProductExportColumn column : ProductExportColumn.values()) {
+            if (column.ordinal() > 0) {
+                line.append(',');
+            }
+            line.append(column.header());
+        }
+        writeLine();
+    }
+    
+    @Override
+    public void write(Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendValue(row[i]);
+        }
+        writeLine();
+    }
+    
+    private void appendValue(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof BigDecimal decimal) {
+            line.append(decimal.toPlainString());
+            return;
+        }
+        if (!(value instanceof String text)) {
+            line.append(value);
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+    
+    private void writeLine() throws IOException {
+        line.append("\r\n");
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+                continue;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            break;
+        }
+        encoder.reset();
+        line.setLength(0);
+    }
+    
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        drain();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        // gzip の場合はトレーラを書いてからファイルを閉じる
+        try {
+            out.close();
+        } finally {
+            file.close();
+        }
+    }
+}
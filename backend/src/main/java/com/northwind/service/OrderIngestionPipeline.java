@@ -0,0 +1,175 @@
+package com.northwind.service;
+
+import com.northwind.dto.OrderDto;
+import com.northwind.dto.OrderRequestDto;
+import com.northwind.entity.CustomerOrder;
+import com.northwind.exception.OrderQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 受注の取り込み: リクエストスレッドで検証してキューに積み、書き込みスレッドが
+// マイクロバッチ単位（最大 batch-size 件、最初の1件から linger-millis 待つ）でまとめてコミットする
+// キューが満杯の場合は受け付けずに OrderQueueFullException を返す（バックプレッシャー）
+@Component
+@Slf4j
+public class OrderIngestionPipeline {
+    
+    private record PendingOrder(CustomerOrder order, CompletableFuture<OrderDto> result, long enqueuedAt) {
+    }
+    
+    private final OrderService orderService;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerNanos;
+    
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+    private final Timer ingestTimer;
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    
+    private Thread writer;
+    private volatile boolean running;
+    
+    public OrderIngestionPipeline(OrderService orderService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${northwind.orders.queue-capacity:10000}") int capacity,
+                                  @Value("${northwind.orders.batch-size:200}") int batchSize,
+                                  @Value("${northwind.orders.linger-millis:2}") long lingerMillis) {
+        this.orderService = orderService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        Gauge.builder("northwind.orders.queue.depth", queue, BlockingQueue::size)
+                .description("Orders accepted but not yet committed")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("northwind.orders.batch.size")
+                .description("Orders committed per transaction")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("northwind.orders.commit")
+                .description("Time to commit one batch of orders, including stock decrements")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.ingestTimer = Timer.builder("northwind.orders.ingest")
+                .description("Time from accepting an order to its commit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.acceptedCounter = outcome(meterRegistry, "accepted");
+        this.rejectedCounter = outcome(meterRegistry, "rejected");
+        this.failedCounter = outcome(meterRegistry, "failed");
+    }
+    
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("northwind.orders.processed")
+                .description("Orders processed by the ingestion pipeline")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("order-writer").start(this::writeLoop);
+    }
+    
+    // 停止時は新規の受付を止め、キューに残った受注をコミットしてから終了する
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+    
+    // 検証エラー（IllegalArgumentException / ProductNotFoundException / InsufficientStockException）はここで送出し、
+    // コミット時の在庫不足などは返却する CompletableFuture の例外として通知する
+    public CompletableFuture<OrderDto> submit(OrderRequestDto request) {
+        if (!running) {
+            throw new OrderQueueFullException(capacity);
+        }
+        CustomerOrder order = orderService.prepareOrder(request);
+        PendingOrder pending = new PendingOrder(order, new CompletableFuture<>(), System.nanoTime());
+        if (!queue.offer(pending)) {
+            throw new OrderQueueFullException(capacity);
+        }
+        return pending.result();
+    }
+    
+    private void writeLoop() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 負荷が高いときは溜まっている分をすぐに取り、少ないときは linger の間だけ後続を待つ
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+    
+    private void commit(List<PendingOrder> batch) {
+        List<OrderService.OrderResult> results;
+        long started = System.nanoTime();
+        try {
+            results = orderService.commitBatch(batch.stream().map(PendingOrder::order).toList());
+        } catch (RuntimeException e) {
+            log.error("Failed to commit a batch of {} orders", batch.size(), e);
+            failedCounter.increment(batch.size());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        long committed = System.nanoTime();
+        commitTimer.record(committed - started, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingOrder pending = batch.get(i);
+            OrderService.OrderResult result = results.get(i);
+            ingestTimer.record(committed - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+            if (result.rejection() != null) {
+                rejectedCounter.increment();
+                pending.result().completeExceptionally(result.rejection());
+            } else {
+                acceptedCounter.increment();
+                pending.result().complete(result.order());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.northwind.service;
+
+import com.northwind.dto.OrderDto;
+import com.northwind.entity.CustomerOrder;
+import com.northwind.entity.OrderDetail;
+import org.mapstruct.*;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface OrderMapper {
+    
+    @Mapping(target = "lines", source = "details")
+    OrderDto toDto(CustomerOrder order);
+    
+    OrderDto.Line toDto(OrderDetail detail);
+}
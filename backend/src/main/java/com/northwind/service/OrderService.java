@@ -0,0 +1,225 @@
+package com.northwind.service;
+
+import com.northwind.dto.OrderDto;
+import com.northwind.dto.OrderRequestDto;
+import com.northwind.dto.ProductChangeEventDto;
+import com.northwind.dto.ProductDto;
+import com.northwind.entity.CustomerOrder;
+import com.northwind.entity.OrderDetail;
+import com.northwind.exception.InsufficientStockException;
+import com.northwind.exception.OrderNotFoundException;
+import com.northwind.exception.OrderStatusConflictException;
+import com.northwind.exception.ProductNotFoundException;
+import com.northwind.repository.CustomerOrderRepository;
+import com.northwind.repository.ProductRepository;
+import com.northwind.repository.ProductStockRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderService {
+    
+    // 受注ごとの登録結果（order と rejection のどちらか一方が設定される）
+    public record OrderResult(OrderDto order, RuntimeException rejection) {
+    }
+    
+    private final CustomerOrderRepository customerOrderRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final OrderMapper orderMapper;
+    private final ProductCache productCache;
+    private final ProductChangeFeed productChangeFeed;
+    private final SalesAnalytics salesAnalytics;
+    
+    public Optional<OrderDto> getOrder(Long id) {
+        return customerOrderRepository.findWithDetailsByCustomerOrderId(id)
+                .map(orderMapper::toDto);
+    }
+    
+    // 受付時の検証: 商品はキャッシュ経由で参照し、DBへの問い合わせなしで明らかな不正を弾く
+    // 在庫はキャッシュ上の値で事前チェックするだけで、確定は commitBatch の差分更新で行う
+    public CustomerOrder prepareOrder(OrderRequestDto request) {
+        if (request.getLines() == null || request.getLines().isEmpty()) {
+            throw new IllegalArgumentException("At least one order line is required");
+        }
+        CustomerOrder order = CustomerOrder.builder()
+                .orderDate(LocalDateTime.now())
+                .requiredDate(request.getRequiredDate())
+                .freight(request.getFreight())
+                .shipName(request.getShipName())
+                .shipAddress(request.getShipAddress())
+                .shipPostalCode(request.getShipPostalCode())
+                .shipPhone(request.getShipPhone())
+                .customerId(request.getCustomerId())
+                .employeeId(request.getEmployeeId())
+                .shipperId(request.getShipperId())
+                .build();
+        Map<Long, Integer> totals = new HashMap<>();
+        for (OrderRequestDto.Line line : request.getLines()) {
+            if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("productId and a positive quantity are required");
+            }
+            BigDecimal discount = line.getDiscount() != null ? line.getDiscount() : BigDecimal.ZERO;
+            if (discount.signum() < 0 || discount.compareTo(BigDecimal.ONE) >= 0) {
+                throw new IllegalArgumentException("discount must be at least 0 and less than 1");
+            }
+            ProductDto product = productService.getProductById(line.getProductId())
+                    .orElseThrow(() -> new ProductNotFoundException(line.getProductId()));
+            salesAnalytics.rememberProduct(product);
+            if (Boolean.TRUE.equals(product.getDiscontinued())) {
+                throw new IllegalArgumentException("Product is discontinued: " + line.getProductId());
+            }
+            // 同じ商品の行は合計で在庫と比べる（合計が int に収まらない場合は不正な注文）
+            int total;
+            try {
+                total = totals.merge(line.getProductId(), line.getQuantity(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Total quantity out of range for product " + line.getProductId());
+            }
+            int available = product.getUnitsInStock() != null ? product.getUnitsInStock() : 0;
+            if (available < total) {
+                throw new InsufficientStockException(line.getProductId(), available, -total);
+            }
+            order.addDetail(OrderDetail.builder()
+                    .productId(line.getProductId())
+                    .quantity(line.getQuantity())
+                    .unitPrice(product.getUnitPrice())
+                    .unitCost(product.getUnitCost())
+                    .discount(discount)
+                    .build());
+        }
+        return order;
+    }
+    
+    // 複数の受注を1トランザクション（1コミット）で登録し、在庫を差分で引き当てる
+    // まずバッチ全体の合計を一括で引き当て、足りない商品があれば戻して受注ごとに引き当て直す
+    @Transactional
+    public List<OrderResult> commitBatch(List<CustomerOrder> orders) {
+        LocalDateTime now = LocalDateTime.now();
+        String user = "system";
+        List<RuntimeException> rejections = new ArrayList<>();
+        orders.forEach(order -> rejections.add(null));
+        
+        // バッチ全体の合計が int に収まらない場合は下限に張り付かせる（一括では引き当てられず、受注ごとの引き当てになる）
+        SortedMap<Long, Integer> total = new TreeMap<>();
+        orders.forEach(order -> stockDeltas(order).forEach((productId, delta) -> total.merge(productId, delta,
+                (a, b) -> (int) Math.max(Integer.MIN_VALUE, (long) a + b))));
+        List<Long> updated = productRepository.addStock(total, user, now);
+        if (updated.size() < total.size()) {
+            revert(total, updated, user, now);
+            for (int i = 0; i < orders.size(); i++) {
+                SortedMap<Long, Integer> deltas = stockDeltas(orders.get(i));
+                List<Long> applied = productRepository.addStock(deltas, user, now);
+                if (applied.size() < deltas.size()) {
+                    revert(deltas, applied, user, now);
+                    Long failedId = deltas.keySet().stream().filter(id -> !applied.contains(id)).findFirst().orElseThrow();
+                    rejections.set(i, productService.stockRejection(failedId, deltas.get(failedId)));
+                }
+            }
+        }
+        
+        List<CustomerOrder> accepted = new ArrayList<>();
+        TreeSet<Long> changedIds = new TreeSet<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (rejections.get(i) == null) {
+                accepted.add(orders.get(i));
+                changedIds.addAll(stockDeltas(orders.get(i)).keySet());
+            }
+        }
+        customerOrderRepository.saveAll(accepted);
+        salesAnalytics.recordAfterCommit(accepted);
+        
+        if (!changedIds.isEmpty()) {
+            publishStockChanges(changedIds);
+        }
+        
+        List<OrderResult> results = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            results.add(rejections.get(i) == null
+                    ? new OrderResult(orderMapper.toDto(orders.get(i)), null)
+                    : new OrderResult(null, rejections.get(i)));
+        }
+        return results;
+    }
+    
+    // 出荷: NEW の受注だけを SHIPPED にする（在庫は受注時に引き当て済み）
+    @Transactional
+    public OrderDto shipOrder(Long id) {
+        CustomerOrder order = lockOpenOrder(id, "shipped");
+        order.setStatus(CustomerOrder.Status.SHIPPED);
+        order.setShippedDate(LocalDateTime.now());
+        return orderMapper.toDto(customerOrderRepository.saveAndFlush(order));
+    }
+    
+    // キャンセル: NEW の受注だけを CANCELLED にし、引き当てた在庫を差分更新で戻して売上集計から差し引く
+    @Transactional
+    public OrderDto cancelOrder(Long id) {
+        CustomerOrder order = lockOpenOrder(id, "cancelled");
+        LocalDateTime now = LocalDateTime.now();
+        order.setStatus(CustomerOrder.Status.CANCELLED);
+        order.setCloseDate(now);
+        salesAnalytics.cancelAfterCommit(order);
+        
+        // addStock が先に状態の変更を書き出してから在庫を戻す
+        SortedMap<Long, Integer> returned = new TreeMap<>();
+        stockDeltas(order).forEach((productId, delta) -> returned.put(productId, -delta));
+        List<Long> applied = productRepository.addStock(returned, "system", now);
+        if (applied.size() < returned.size()) {
+            // 戻すと在庫数の上限を超える場合など。例外でトランザクション全体を取り消す
+            Long failedId = returned.keySet().stream().filter(productId -> !applied.contains(productId)).findFirst().orElseThrow();
+            throw productService.stockRejection(failedId, returned.get(failedId));
+        }
+        publishStockChanges(returned.keySet());
+        return orderMapper.toDto(order);
+    }
+    
+    // 在庫の差分更新後のバージョンでキャッシュを無効化し、変更を通知する
+    private void publishStockChanges(Collection<Long> productIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (ProductStockRow row : productRepository.findStock(productIds)) {
+            versions.put(row.getProductId(), row.getVersion());
+            productChangeFeed.publishAfterCommit(ProductChangeEventDto.Type.UPDATED, row.getProductId(), row.getVersion(), null);
+        }
+        productCache.invalidateAfterCommit(versions);
+    }
+    
+    private CustomerOrder lockOpenOrder(Long id, String action) {
+        CustomerOrder order = customerOrderRepository.findLockedByCustomerOrderId(id)
+                .orElseThrow(() -> new OrderNotFoundException(id));
+        if (order.getStatus() != CustomerOrder.Status.NEW) {
+            throw new OrderStatusConflictException(id, order.getStatus(), action);
+        }
+        return order;
+    }
+    
+    private static SortedMap<Long, Integer> stockDeltas(CustomerOrder order) {
+        SortedMap<Long, Integer> deltas = new TreeMap<>();
+        order.getDetails().forEach(detail -> deltas.merge(detail.getProductId(), -detail.getQuantity(), Math::addExact));
+        return deltas;
+    }
+    
+    // 途中まで適用した引き当てを戻す（同じトランザクション内なので他からは見えない）
+    private void revert(SortedMap<Long, Integer> deltas, List<Long> applied, String user, LocalDateTime now) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        SortedMap<Long, Integer> reverse = new TreeMap<>();
+        applied.forEach(productId -> reverse.put(productId, -deltas.get(productId)));
+        productRepository.addStock(reverse, user, now);
+    }
+}
@@ -0,0 +1,124 @@
+package com.northwind.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.northwind.dto.ProductDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 商品DTOのプロセス内キャッシュ（サイズ上限付き、W-TinyLFUで追い出し）
+// エントリはバージョン付きで保持し、古いバージョンによる上書きを防ぐ
+// DTOにはカテゴリ名が含まれるため、商品のバージョンに加えて読み込み時のカテゴリのバージョンも保持する
+@Component
+public class ProductCache {
+    
+    // product == null は削除済み商品（トゥームストーン）を表す
+    // stale == true は内容を持たない無効化マーカー。そのバージョン未満の読み込み結果による上書きを防ぐ
+    // categoryVersion はカテゴリなし・トゥームストーン・無効化マーカーでは0
+    public record Entry(long version, long categoryVersion, ProductDto product, boolean stale) {
+        
+        public Entry(long version, long categoryVersion, ProductDto product) {
+            this(version, categoryVersion, product, false);
+        }
+    }
+    
+    private final Cache<Long, Entry> cache;
+    // カテゴリの更新・削除後の最小バージョン。これより古いカテゴリで読み込んだエントリは使わない
+    private final Map<Long, Long> categoryVersions = new ConcurrentHashMap<>();
+    
+    public ProductCache(@Value("${northwind.cache.products.maximum-size:10000}") long maximumSize,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        // cache.gets(hit/miss), cache.evictions などをactuatorのmetricsに公開
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+    
+    // 無効化マーカーと、更新前のカテゴリで読み込んだエントリはミスとして扱う
+    public Entry get(Long productId) {
+        Entry entry = cache.getIfPresent(productId);
+        return entry != null && isUsable(entry) ? entry : null;
+    }
+    
+    // キャッシュにあるエントリのみを返す（ヒット・ミスは1件ずつ統計に記録される）
+    public Map<Long, Entry> getAll(Collection<Long> productIds) {
+        Map<Long, Entry> entries = new HashMap<>(cache.getAllPresent(productIds));
+        entries.values().removeIf(entry -> !isUsable(entry));
+        return entries;
+    }
+    
+    // 既存エントリより新しい（または同じ）バージョンの場合のみ反映する
+    // カテゴリの更新前に読み込んだエントリは、コミット後に書き戻されないよう反映しない
+    public void put(Long productId, Entry entry) {
+        if (isUsable(entry)) {
+            merge(productId, entry);
+        }
+    }
+    
+    private boolean isUsable(Entry entry) {
+        if (entry.stale()) {
+            return false;
+        }
+        if (entry.product() == null || entry.product().getCategory() == null) {
+            return true;
+        }
+        Long minimum = categoryVersions.get(entry.product().getCategory().getCategoryId());
+        return minimum == null || entry.categoryVersion() >= minimum;
+    }
+    
+    public void evict(Long productId) {
+        cache.invalidate(productId);
+    }
+    
+    private void merge(Long productId, Entry entry) {
+        cache.asMap().merge(productId, entry,
+                (current, candidate) -> isNewerOrSame(candidate, current) ? candidate : current);
+    }
+    
+    // 商品のバージョンが同じ場合はカテゴリも同じため、カテゴリのバージョンで比べる
+    private static boolean isNewerOrSame(Entry candidate, Entry current) {
+        if (candidate.version() != current.version()) {
+            return candidate.version() > current.version();
+        }
+        return candidate.categoryVersion() >= current.categoryVersion();
+    }
+    
+    // トランザクションのコミット後にのみ反映する（ロールバック時はキャッシュを変更しない）
+    public void putAfterCommit(Long productId, Entry entry) {
+        TransactionCallbacks.afterCommit(() -> put(productId, entry));
+    }
+    
+    // 一括更新（商品全体を読み込まない更新）用: 削除ではなく更新後のバージョンの無効化マーカーを置く
+    // コミット前に古い行を読んだ読み込みが、コミット後に古い内容を書き戻すことを防ぐ
+    public void invalidateAfterCommit(Map<Long, Long> versions) {
+        Map<Long, Long> copy = Map.copyOf(versions);
+        TransactionCallbacks.afterCommit(() -> copy.forEach((productId, version) ->
+                merge(productId, new Entry(version, 0, null, true))));
+    }
+    
+    // 一括論理削除用: 更新後のバージョンのトゥームストーンを置く
+    public void putDeletedAfterCommit(Map<Long, Long> versions) {
+        Map<Long, Long> copy = Map.copyOf(versions);
+        TransactionCallbacks.afterCommit(() -> copy.forEach((productId, version) ->
+                put(productId, new Entry(version, 0, null))));
+    }
+    
+    // カテゴリの更新・削除用: そのカテゴリの商品のうち、categoryVersion 未満で読み込んだエントリを無効にする
+    // （カテゴリの商品を列挙せずに済むよう、参照時と書き込み時にカテゴリのバージョンを比べる）
+    public void invalidateCategoryAfterCommit(Long categoryId, long categoryVersion) {
+        TransactionCallbacks.afterCommit(() -> categoryVersions.merge(categoryId, categoryVersion, Math::max));
+    }
+    
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
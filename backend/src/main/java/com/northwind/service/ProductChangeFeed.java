@@ -0,0 +1,297 @@
+package com.northwind.service;
+
+import com.northwind.dto.ProductChangeEventDto;
+import com.northwind.dto.ProductDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// 商品変更イベントのSSE配信
+// 直近のイベントのみを固定長のリングバッファに保持し、購読者ごとの送信位置から差分を配信する
+// （遅れた購読者のためにイベントを溜め込まず、バッファから外れた場合はRELOADを送る）
+// 送信は購読者ごとのタスクとして送信用スレッドプールで行い、遅い購読者が他の購読者の配信を止めないようにする
+// 1回の送信が send-timeout-millis を超えた購読者は切断する（再接続時に Last-Event-ID から再開できる）
+@Component
+@Slf4j
+public class ProductChangeFeed {
+    
+    private final ProductChangeEventDto[] buffer;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMillis;
+    private final long heartbeatMillis;
+    private final long sendTimeoutMillis;
+    private final int senderThreads;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<ProductChangeEventDto>> listeners = new CopyOnWriteArrayList<>();
+    private long latestSequence;
+    // 購読者の増減・送信タスクの完了で、配信ループに送信対象を見直させる
+    private boolean rescan;
+    
+    private Thread dispatcher;
+    private ExecutorService senders;
+    private volatile boolean running;
+    
+    private static final class Subscriber {
+        
+        private final SseEmitter emitter;
+        private volatile long cursor;
+        // 送信タスクは購読者ごとに同時に1つまで
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long sendStartedAt;
+        private volatile boolean dropped;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+    
+    public ProductChangeFeed(@Value("${northwind.feed.buffer-size:1024}") int bufferSize,
+                             @Value("${northwind.feed.max-subscribers:1000}") int maxSubscribers,
+                             @Value("${northwind.feed.emitter-timeout-millis:1800000}") long emitterTimeoutMillis,
+                             @Value("${northwind.feed.heartbeat-millis:15000}") long heartbeatMillis,
+                             @Value("${northwind.feed.send-timeout-millis:5000}") long sendTimeoutMillis,
+                             @Value("${northwind.feed.sender-threads:4}") int senderThreads) {
+        this.buffer = new ProductChangeEventDto[bufferSize];
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.senderThreads = senderThreads;
+    }
+    
+    @PostConstruct
+    void start() {
+        running = true;
+        // SseEmitter.send は synchronized のため、仮想スレッドではなくプラットフォームスレッドで送る
+        senders = Executors.newFixedThreadPool(senderThreads,
+                Thread.ofPlatform().daemon().name("product-change-feed-sender-", 0).factory());
+        dispatcher = Thread.ofPlatform().daemon().name("product-change-feed").start(this::dispatchLoop);
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+    
+    public void publishAfterCommit(ProductChangeEventDto.Type type, Long productId, Long version, ProductDto product) {
+        TransactionCallbacks.afterCommit(() -> publish(type, productId, version, product));
+    }
+    
+    public void publish(ProductChangeEventDto.Type type, Long productId, Long version, ProductDto product) {
+        ProductChangeEventDto event;
+        lock.lock();
+        try {
+            long sequence = ++latestSequence;
+            event = ProductChangeEventDto.builder()
+                    .sequence(sequence)
+                    .type(type)
+                    .productId(productId)
+                    .version(version)
+                    .product(product)
+                    .occurredAt(LocalDateTime.now())
+                    .build();
+            buffer[(int) (sequence % buffer.length)] = event;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        listeners.forEach(listener -> listener.accept(event));
+    }
+    
+    // サーバー内の派生データ（集計キャッシュなど）の無効化用。発行したスレッドで同期的に呼ばれるため、軽い処理に限る
+    public void addListener(Consumer<ProductChangeEventDto> listener) {
+        listeners.add(listener);
+    }
+    
+    // lastEventIdが指定された場合は、その次のイベントから再開する
+    public SseEmitter subscribe(Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        lock.lock();
+        try {
+            // サーバー再起動などで未知のIDが指定された場合は、RELOADから始める
+            long cursor = lastEventId == null ? latestSequence
+                    : lastEventId > latestSequence ? -1 : lastEventId;
+            Subscriber subscriber = new Subscriber(emitter, cursor);
+            subscribers.add(subscriber);
+            emitter.onCompletion(() -> subscribers.remove(subscriber));
+            emitter.onTimeout(() -> subscribers.remove(subscriber));
+            emitter.onError(e -> subscribers.remove(subscriber));
+            rescan = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+    
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+    
+    // 配信ループ自体は送信しない: 送信が必要な購読者に送信タスクを割り当て、送信が長引いている購読者を切断する
+    private void dispatchLoop() {
+        long lastHeartbeat = System.currentTimeMillis();
+        while (running) {
+            long latest;
+            lock.lock();
+            try {
+                if (!rescan && !hasPendingEvents()) {
+                    changed.await(Math.min(heartbeatMillis, sendTimeoutMillis), TimeUnit.MILLISECONDS);
+                }
+                rescan = false;
+                latest = latestSequence;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            long now = System.currentTimeMillis();
+            boolean heartbeat = now - lastHeartbeat >= heartbeatMillis;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.sending.get()) {
+                    if (now - subscriber.sendStartedAt > sendTimeoutMillis) {
+                        drop(subscriber);
+                    }
+                } else if (subscriber.cursor < latest || heartbeat) {
+                    schedule(subscriber, latest, heartbeat);
+                }
+            }
+            if (heartbeat) {
+                lastHeartbeat = now;
+            }
+        }
+    }
+    
+    // 送信中でない購読者に未送信のイベントがあるか
+    private boolean hasPendingEvents() {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.sending.get() && subscriber.cursor < latestSequence) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void schedule(Subscriber subscriber, long latest, boolean heartbeat) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            return;
+        }
+        subscriber.sendStartedAt = System.currentTimeMillis();
+        try {
+            senders.execute(() -> {
+                try {
+                    deliver(subscriber, latest, heartbeat);
+                } finally {
+                    subscriber.sending.set(false);
+                    if (subscriber.dropped) {
+                        close(subscriber);
+                    }
+                    lock.lock();
+                    try {
+                        rescan = true;
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+        }
+    }
+    
+    // 送信が詰まっている購読者を配信対象から外す
+    // 送信中のスレッドが emitter のロックを持っているため、送信中ならここでは閉じず送信タスクの終了時に閉じる
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.dropped = true;
+            if (!subscriber.sending.get()) {
+                close(subscriber);
+            }
+            log.info("Dropped product change subscriber: send blocked for more than {} ms", sendTimeoutMillis);
+        }
+    }
+    
+    private static void close(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+    
+    private void deliver(Subscriber subscriber, long latest, boolean heartbeat) {
+        try {
+            for (ProductChangeEventDto event : eventsAfter(subscriber.cursor, latest)) {
+                if (subscriber.dropped) {
+                    return;
+                }
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getSequence()))
+                        .name(event.getType().name())
+                        .data(event));
+                subscriber.cursor = event.getSequence();
+            }
+            if (heartbeat && !subscriber.dropped) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Product change subscriber disconnected: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+    
+    private List<ProductChangeEventDto> eventsAfter(long cursor, long latest) {
+        List<ProductChangeEventDto> events = new ArrayList<>();
+        if (cursor >= latest) {
+            return events;
+        }
+        lock.lock();
+        try {
+            long oldest = Math.max(1, latestSequence - buffer.length + 1);
+            if (cursor + 1 < oldest) {
+                // バッファから外れたイベントは再送できないため、全件の再読み込みを促す
+                events.add(ProductChangeEventDto.builder()
+                        .sequence(latest)
+                        .type(ProductChangeEventDto.Type.RELOAD)
+                        .occurredAt(LocalDateTime.now())
+                        .build());
+                return events;
+            }
+            for (long sequence = cursor + 1; sequence <= latest; sequence++) {
+                events.add(buffer[(int) (sequence % buffer.length)]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return events;
+    }
+}
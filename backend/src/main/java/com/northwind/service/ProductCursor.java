@@ -0,0 +1,86 @@
+package com.northwind.service;
+
+import com.northwind.entity.Product;
+import com.northwind.repository.ProductKeyset;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// キーセットページング用カーソル: 最終行の (ソートキー, 商品ID) を不透明なトークンにエンコードする
+// ソートキーの値は null と空文字を区別できるよう、null は NULL_VALUE、値は VALUE_PREFIX を付けて保存する
+public final class ProductCursor {
+    
+    public static final String DEFAULT_SORT = "productId";
+    
+    private static final String ID = "productId";
+    private static final String SEPARATOR = "\u0000";
+    private static final String NULL_VALUE = "n";
+    private static final String VALUE_PREFIX = "v";
+    
+    private ProductCursor() {
+    }
+    
+    public static String sortKey(String sortKey) {
+        return validSortKey(sortKey);
+    }
+    
+    // 先頭ページ（cursor 未指定）の場合は null
+    public static ProductKeyset decode(String cursor, String sortKey) {
+        String key = validSortKey(sortKey);
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (parts.length != 3 || !parts[0].equals(key)) {
+            throw new IllegalArgumentException("Invalid cursor for sort '" + key + "': " + cursor);
+        }
+        try {
+            Object value = null;
+            if (!ID.equals(key) && !parts[1].equals(NULL_VALUE)) {
+                if (!parts[1].startsWith(VALUE_PREFIX)) {
+                    throw new IllegalArgumentException("Invalid cursor: " + cursor);
+                }
+                value = parseSortValue(key, parts[1].substring(VALUE_PREFIX.length()));
+            }
+            return new ProductKeyset(value, Long.valueOf(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+    
+    public static String encode(String sortKey, Product last) {
+        String key = validSortKey(sortKey);
+        Object sortValue = switch (key) {
+            case "name" -> last.getName();
+            case "code" -> last.getCode();
+            case "unitPrice" -> last.getUnitPrice();
+            default -> null;
+        };
+        String value = sortValue == null ? NULL_VALUE : VALUE_PREFIX + sortValue;
+        String raw = key + SEPARATOR + value + SEPARATOR + last.getProductId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Object parseSortValue(String key, String value) {
+        return switch (key) {
+            case "unitPrice" -> new BigDecimal(value);
+            default -> value;
+        };
+    }
+    
+    private static String validSortKey(String sortKey) {
+        if (sortKey == null || sortKey.isBlank()) {
+            return DEFAULT_SORT;
+        }
+        return switch (sortKey) {
+            case "productId", "name", "code", "unitPrice" -> sortKey;
+            default -> throw new IllegalArgumentException("Unsupported sort key: " + sortKey);
+        };
+    }
+}
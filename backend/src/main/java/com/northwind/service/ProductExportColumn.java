@@ -0,0 +1,57 @@
+package com.northwind.service;
+
+// カタログエクスポートの列（SELECT句の順序と一致させる）
+enum ProductExportColumn {
+    
+    PRODUCT_ID("product_id", "p.productId", Type.LONG),
+    CODE("code", "p.code", Type.STRING),
+    NAME("name", "p.name", Type.STRING),
+    QUANTITY_PER_UNIT("quantity_per_unit", "p.quantityPerUnit", Type.STRING),
+    UNIT_PRICE("unit_price", "p.unitPrice", Type.DECIMAL),
+    UNIT_COST("unit_cost", "p.unitCost", Type.DECIMAL),
+    UNITS_IN_STOCK("units_in_stock", "p.unitsInStock", Type.INT),
+    REORDER_LEVEL("reorder_level", "p.reorderLevel", Type.INT),
+    DISCONTINUED("discontinued", "p.discontinued", Type.BOOLEAN),
+    CATEGORY_ID("category_id", "c.categoryId", Type.LONG),
+    CATEGORY_NAME("category_name", "c.name", Type.STRING),
+    SUPPLIER_ID("supplier_id", "s.supplierId", Type.LONG),
+    SUPPLIER_NAME("supplier_name", "s.companyName", Type.STRING);
+    
+    // 列指向ファイルでの型コード（ordinal を書き出す）
+    enum Type { LONG, INT, DECIMAL, BOOLEAN, STRING }
+    
+    // 金額列（numeric(19,2)）は小数2桁固定の整数として書き出す
+    static final int DECIMAL_SCALE = 2;
+    
+    private final String header;
+    private final String path;
+    private final Type type;
+    
+    ProductExportColumn(String header, String path, Type type) {
+        this.header = header;
+        this.path = path;
+        this.type = type;
+    }
+    
+    String header() {
+        return header;
+    }
+    
+    Type type() {
+        return type;
+    }
+    
+    // エンティティを生成しないスカラー射影。商品IDの昇順で走査する
+    static String selectQuery() {
+        StringBuilder select = new StringBuilder("SELECT ");
+        for (ProductExportColumn column : values()) {
+            if (column.ordinal() > 0) {
+                select.append(", ");
+            }
+            select.append(column.path);
+        }
+        return select.append(" FROM Product p LEFT JOIN p.category c LEFT JOIN p.supplier s")
+                .append(" WHERE p.deleted = false ORDER BY p.productId")
+                .toString();
+    }
+}
@@ -0,0 +1,439 @@
+package com.northwind.service;
+
+import com.northwind.dto.ExportJobDto;
+import com.northwind.exception.ExportQueueFullException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 商品カタログのエクスポート（CSV・列指向バイナリ）
+// ステートレスセッションの読み取り専用・前方専用カーソルで nw_products を走査し、エンティティを生成せずに
+// 各形式のライターへ1行ずつ渡す（メモリ使用量は行数によらず fetch-size と row-group-size で決まる）
+// ジョブは専用スレッドで1件ずつ実行し、リクエストスレッドは受付後すぐに返す
+// 走査は読み取り専用トランザクションの中で行い、ReadWriteRoutingDataSource がレプリカへ振り分けられるようにする
+@Service
+@Slf4j
+public class ProductExportService {
+    
+    private static final class Job {
+        
+        final String id = UUID.randomUUID().toString();
+        final List<ExportJobDto.Format> formats;
+        final boolean gzip;
+        final LocalDateTime requestedAt = LocalDateTime.now();
+        final Map<ExportJobDto.Format, Path> files = new EnumMap<>(ExportJobDto.Format.class);
+        volatile ExportJobDto.State state = ExportJobDto.State.QUEUED;
+        volatile Long totalRows;
+        volatile long rowsWritten;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+        volatile boolean cancelled;
+        Future<?> future;
+        
+        Job(List<ExportJobDto.Format> formats, boolean gzip) {
+            this.formats = formats;
+            this.gzip = gzip;
+        }
+        
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+    }
+    
+    private final SessionFactory sessionFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Path directory;
+    private final int fetchSize;
+    private final int rowGroupSize;
+    private final int queueCapacity;
+    private final int retainedJobs;
+    private final String dailyAt;
+    private final ThreadPoolExecutor executor;
+    // jobs は受付順（古いジョブから削除するため）。synchronized は仮想スレッドをキャリアに固定するため ReentrantLock で守る
+    private final ReentrantLock jobsLock = new ReentrantLock();
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private ScheduledExecutorService dailyScheduler;
+    
+    public ProductExportService(EntityManagerFactory entityManagerFactory,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${northwind.export.directory:${java.io.tmpdir}/northwind-exports}") String directory,
+                                @Value("${northwind.export.fetch-size:1000}") int fetchSize,
+                                @Value("${northwind.export.row-group-size:65536}") int rowGroupSize,
+                                @Value("${northwind.export.queue-capacity:4}") int queueCapacity,
+                                @Value("${northwind.export.retained-jobs:10}") int retainedJobs,
+                                @Value("${northwind.export.daily-at:}") String dailyAt) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.directory = Path.of(directory);
+        this.fetchSize = fetchSize;
+        this.rowGroupSize = rowGroupSize;
+        this.queueCapacity = queueCapacity;
+        this.retainedJobs = retainedJobs;
+        this.dailyAt = dailyAt;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().daemon().name("product-export").factory());
+    }
+    
+    // daily-at（HH:mm）が指定されていれば、毎日その時刻に CSV(gzip) と列指向ファイルを書き出す
+    @PostConstruct
+    void start() {
+        if (dailyAt.isBlank()) {
+            return;
+        }
+        LocalTime at = LocalTime.parse(dailyAt.trim());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        dailyScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("product-export-daily").factory());
+        dailyScheduler.scheduleAtFixedRate(this::startDaily,
+                Duration.between(now, next).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+        log.info("Daily product export scheduled at {}", at);
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (dailyScheduler != null) {
+            dailyScheduler.shutdownNow();
+        }
+        jobsLock.lock();
+        try {
+            jobs.values().forEach(job -> job.cancelled = true);
+        } finally {
+            jobsLock.unlock();
+        }
+        executor.shutdownNow();
+    }
+    
+    private void startDaily() {
+        try {
+            start(List.of(ExportJobDto.Format.CSV, ExportJobDto.Format.COLUMNAR), true);
+        } catch (ExportQueueFullException e) {
+            log.warn("Daily product export skipped: {}", e.getMessage());
+        }
+    }
+    
+    public ExportJobDto start(List<ExportJobDto.Format> formats, boolean gzip) {
+        if (formats.isEmpty()) {
+            throw new IllegalArgumentException("At least one export format is required");
+        }
+        Job job = new Job(List.copyOf(formats), gzip);
+        List<Job> evicted;
+        jobsLock.lock();
+        try {
+            try {
+                job.future = executor.submit(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                throw new ExportQueueFullException(queueCapacity);
+            }
+            jobs.put(job.id, job);
+            evicted = evictOldJobs();
+        } finally {
+            jobsLock.unlock();
+        }
+        // ファイルの削除（I/O）はロックの外で行う
+        evicted.forEach(old -> deleteFiles(old.files.values()));
+        return toDto(job);
+    }
+    
+    public List<ExportJobDto> getJobs() {
+        List<Job> snapshot;
+        jobsLock.lock();
+        try {
+            snapshot = List.copyOf(jobs.values());
+        } finally {
+            jobsLock.unlock();
+        }
+        // toDto はファイルサイズを読むため、ロックの外で変換する
+        return snapshot.stream().map(this::toDto).toList();
+    }
+    
+    public Optional<ExportJobDto> getJob(String jobId) {
+        return findJob(jobId).map(this::toDto);
+    }
+    
+    // 完了したジョブのファイルのみ返す
+    public Optional<Path> getFile(String jobId, ExportJobDto.Format format) {
+        return findJob(jobId)
+                .filter(job -> job.state == ExportJobDto.State.COMPLETED)
+                .map(job -> job.files.get(format));
+    }
+    
+    // 実行中・待機中のジョブは取り消し、終了済みのジョブはファイルごと削除する
+    public boolean cancel(String jobId) {
+        Job job;
+        jobsLock.lock();
+        try {
+            job = jobs.get(jobId);
+            if (job == null) {
+                return false;
+            }
+            job.cancelled = true;
+            if (job.future.cancel(false)) {
+                // 開始前に取り消せた場合は run が呼ばれないため、ここで終了させる
+                job.state = ExportJobDto.State.CANCELLED;
+                job.finishedAt = LocalDateTime.now();
+            }
+            if (job.isFinished()) {
+                jobs.remove(jobId);
+            }
+        } finally {
+            jobsLock.unlock();
+        }
+        if (job.isFinished()) {
+            deleteFiles(job.files.values());
+        }
+        return true;
+    }
+    
+    private Optional<Job> findJob(String jobId) {
+        jobsLock.lock();
+        try {
+            return Optional.ofNullable(jobs.get(jobId));
+        } finally {
+            jobsLock.unlock();
+        }
+    }
+    
+    private void run(Job job) {
+        if (job.cancelled) {
+            return;
+        }
+        job.state = ExportJobDto.State.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<ExportJobDto.Format, Path> parts = new EnumMap<>(ExportJobDto.Format.class);
+        String outcome = "failed";
+        try {
+            Files.createDirectories(directory);
+            exportReadOnly(job, parts);
+            // 書き終えたファイルだけを最終的な名前に置き換える（ダウンロード中の不完全なファイルを見せない）
+            for (Map.Entry<ExportJobDto.Format, Path> part : parts.entrySet()) {
+                Path target = directory.resolve(fileName(job, part.getKey()));
+                Files.move(part.getValue(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                job.files.put(part.getKey(), target);
+            }
+            job.state = ExportJobDto.State.COMPLETED;
+            outcome = "completed";
+            log.info("Product export {} completed: {} rows in {} ms", job.id, job.rowsWritten,
+                    Duration.between(job.startedAt, LocalDateTime.now()).toMillis());
+        } catch (CancellationException e) {
+            job.state = ExportJobDto.State.CANCELLED;
+            outcome = "cancelled";
+        } catch (IOException | RuntimeException e) {
+            log.warn("Product export {} failed", job.id, e);
+            job.error = e.getMessage();
+            job.state = ExportJobDto.State.FAILED;
+        } finally {
+            deleteFiles(parts.values().stream().filter(Files::exists).toList());
+            job.finishedAt = LocalDateTime.now();
+            sample.stop(Timer.builder("northwind.export")
+                    .description("Catalog export job duration")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+    
+    // ステートレスセッションは Spring のトランザクション管理の外で接続を取得するため、そのままでは
+    // 読み取り専用の判定ができずプライマリへ振り分けられる。読み取り専用トランザクションを開始してから
+    // セッションを開き、最初の文を発行する時点（LazyConnectionDataSourceProxy）でレプリカを選ばせる
+    private void exportReadOnly(Job job, Map<ExportJobDto.Format, Path> parts) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try {
+                    export(job, parts);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private void export(Job job, Map<ExportJobDto.Format, Path> parts) throws IOException {
+        List<ProductExportWriter> writers = new ArrayList<>();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                // 文を発行する前に読み取り専用にする（PostgreSQL では READ ONLY トランザクションになる）
+                session.doWork(connection -> connection.setReadOnly(true));
+                job.totalRows = session.createSelectionQuery(
+                        "SELECT COUNT(p) FROM Product p WHERE p.deleted = false", Long.class).getSingleResult();
+                for (ExportJobDto.Format format : job.formats) {
+                    Path part = directory.resolve(fileName(job, format) + ".part");
+                    parts.put(format, part);
+                    writers.add(openWriter(format, job.gzip, part));
+                }
+                try (ScrollableResults<Object[]> rows = session
+                        .createSelectionQuery(ProductExportColumn.selectQuery(), Object[].class)
+                        .setFetchSize(fetchSize)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    long written = 0;
+                    while (rows.next()) {
+                        if (job.cancelled) {
+                            throw new CancellationException();
+                        }
+                        Object[] row = rows.get();
+                        for (ProductExportWriter writer : writers) {
+                            writer.write(row);
+                        }
+                        job.rowsWritten = ++written;
+                    }
+                }
+                for (ProductExportWriter writer : writers) {
+                    writer.finish();
+                }
+                transaction.commit();
+            } finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                closeAll(writers);
+            }
+        }
+    }
+    
+    private ProductExportWriter openWriter(ExportJobDto.Format format, boolean gzip, Path part) throws IOException {
+        FileChannel channel = FileChannel.open(part,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return format == ExportJobDto.Format.CSV
+                    ? new CsvExportWriter(channel, gzip)
+                    : new ColumnarExportWriter(channel, rowGroupSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private static void closeAll(List<ProductExportWriter> writers) throws IOException {
+        IOException failure = null;
+        for (ProductExportWriter writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    private static String fileName(Job job, ExportJobDto.Format format) {
+        return "products-" + job.id + (format == ExportJobDto.Format.CSV ? (job.gzip ? ".csv.gz" : ".csv") : ".nwc");
+    }
+    
+    // 保持数を超えた終了済みのジョブを古い順に一覧から外す（jobsLock を保持して呼ぶ）
+    // ファイルは呼び出し元がロックを解放してから削除する
+    private List<Job> evictOldJobs() {
+        List<Job> evicted = new ArrayList<>();
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (jobs.size() > retainedJobs && iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.isFinished()) {
+                iterator.remove();
+                evicted.add(job);
+            }
+        }
+        return evicted;
+    }
+    
+    private static void deleteFiles(Iterable<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete export file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+    
+    private ExportJobDto toDto(Job job) {
+        Long total = job.totalRows;
+        long written = job.rowsWritten;
+        Double progress = job.state == ExportJobDto.State.COMPLETED ? Double.valueOf(1.0)
+                : total != null && total > 0 ? Double.valueOf(Math.min(1.0, (double) written / total)) : null;
+        List<ExportJobDto.File> files = new ArrayList<>();
+        if (job.state == ExportJobDto.State.COMPLETED) {
+            job.files.forEach((format, path) -> files.add(ExportJobDto.File.builder()
+                    .format(format)
+                    .name(path.getFileName().toString())
+                    .bytes(sizeOf(path))
+                    .url("/api/exports/products/" + job.id + "/files/" + format.name().toLowerCase())
+                    .build()));
+        }
+        return ExportJobDto.builder()
+                .jobId(job.id)
+                .state(job.state)
+                .formats(job.formats)
+                .gzip(job.gzip)
+                .totalRows(total)
+                .rowsWritten(written)
+                .progress(progress)
+                .requestedAt(job.requestedAt)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .error(job.error)
+                .files(files)
+                .build();
+    }
+    
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
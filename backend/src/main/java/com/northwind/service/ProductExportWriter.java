@@ -0,0 +1,15 @@
+package com.northwind.service;
+
+import java.io.IOException;
+
+// エクスポートの出力形式ごとの書き出し（1行ずつ受け取り、内部バッファが溜まったらチャネルへ書く）
+interface ProductExportWriter extends AutoCloseable {
+    
+    void write(Object[] row) throws IOException;
+    
+    // 残りのバッファとフッタを書き出す（close の前に成功時のみ呼ぶ）
+    void finish() throws IOException;
+    
+    @Override
+    void close() throws IOException;
+}
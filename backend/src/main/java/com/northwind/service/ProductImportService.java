@@ -0,0 +1,358 @@
+package com.northwind.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northwind.dto.CategorySummaryDto;
+import com.northwind.dto.ImportResultDto;
+import com.northwind.dto.ProductChangeEventDto;
+import com.northwind.dto.ProductDto;
+import com.northwind.entity.Category;
+import com.northwind.entity.Product;
+import com.northwind.repository.CategoryRepository;
+import com.northwind.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// 商品の一括登録（JSON配列 / CSV）
+// 入力をストリームで読み、チャンク単位でJDBCバッチINSERTとコミットを行う
+@Service
+@Slf4j
+public class ProductImportService {
+    
+    private static final Set<String> CSV_COLUMNS = Set.of(
+            "name", "code", "quantityPerUnit", "unitPrice", "unitCost",
+            "unitsInStock", "reorderLevel", "discontinued", "categoryId");
+    
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductChangeFeed productChangeFeed;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+    private final int maxErrors;
+    
+    public ProductImportService(ProductRepository productRepository,
+                                CategoryRepository categoryRepository,
+                                ProductSearchIndex productSearchIndex,
+                                ProductChangeFeed productChangeFeed,
+                                EntityManager entityManager,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${northwind.import.chunk-size:1000}") int defaultChunkSize,
+                                @Value("${northwind.import.max-errors:1000}") int maxErrors) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productChangeFeed = productChangeFeed;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxErrors = maxErrors;
+    }
+    
+    public ImportResultDto importJson(InputStream in, Integer chunkSize) throws IOException {
+        Importer importer = new Importer(chunkSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of products");
+            }
+            // 配列の終わりまで読む（オブジェクト以外の要素はその行のエラーとして読み飛ばす）
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    importer.reject("Unexpected end of JSON input");
+                    break;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    importer.reject("Expected a product object but found " + describe(token));
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    importer.add(objectMapper.treeToValue(node, ProductDto.class));
+                } catch (IOException | IllegalArgumentException e) {
+                    importer.reject(e.getMessage());
+                }
+            }
+        } catch (JsonParseException e) {
+            // 構文エラー以降は読めないため、それまでの行を登録して終了する
+            importer.reject("Malformed JSON: " + e.getOriginalMessage());
+        }
+        return importer.finish();
+    }
+    
+    private static String describe(JsonToken token) {
+        return switch (token) {
+            case START_ARRAY -> "an array";
+            case VALUE_STRING -> "a string";
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> "a number";
+            case VALUE_TRUE, VALUE_FALSE -> "a boolean";
+            case VALUE_NULL -> "null";
+            default -> token.name();
+        };
+    }
+    
+    // 1行目はヘッダ（列名はProductDtoのプロパティ名、カテゴリは categoryId）
+    public ImportResultDto importCsv(InputStream in, Integer chunkSize) throws IOException {
+        Importer importer = new Importer(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty");
+        }
+        List<String> columns = parseCsvLine(header).stream().map(String::trim).toList();
+        for (String column : columns) {
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown CSV column: " + column);
+            }
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                importer.add(fromCsv(columns, parseCsvLine(line)));
+            } catch (IllegalArgumentException e) {
+                importer.reject(e.getMessage());
+            }
+        }
+        return importer.finish();
+    }
+    
+    private static ProductDto fromCsv(List<String> columns, List<String> values) {
+        if (values.size() != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " columns but found " + values.size());
+        }
+        ProductDto dto = new ProductDto();
+        for (int i = 0; i < columns.size(); i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            if (value == null) {
+                continue;
+            }
+            switch (columns.get(i)) {
+                case "name" -> dto.setName(value);
+                case "code" -> dto.setCode(value);
+                case "quantityPerUnit" -> dto.setQuantityPerUnit(value);
+                case "unitPrice" -> dto.setUnitPrice(new BigDecimal(value.trim()));
+                case "unitCost" -> dto.setUnitCost(new BigDecimal(value.trim()));
+                case "unitsInStock" -> dto.setUnitsInStock(Integer.valueOf(value.trim()));
+                case "reorderLevel" -> dto.setReorderLevel(Integer.valueOf(value.trim()));
+                case "discontinued" -> dto.setDiscontinued(Boolean.valueOf(value.trim()));
+                case "categoryId" -> dto.setCategory(CategorySummaryDto.builder()
+                        .categoryId(Long.valueOf(value.trim()))
+                        .build());
+                default -> throw new IllegalArgumentException("Unknown CSV column: " + columns.get(i));
+            }
+        }
+        return dto;
+    }
+    
+    // RFC 4180形式の1行を分割する（"" によるエスケープに対応、行内改行は非対応）
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+    
+    private record Row(int number, ProductDto product) {
+    }
+    
+    // 1回のインポートの状態（チャンク、結果、解決済みカテゴリ）
+    private class Importer {
+        
+        private final int chunkSize;
+        private final long start = System.currentTimeMillis();
+        private final List<Row> pending = new ArrayList<>();
+        private final Set<Long> knownCategoryIds = new HashSet<>();
+        private final Set<Long> missingCategoryIds = new HashSet<>();
+        private final ImportResultDto result = new ImportResultDto();
+        
+        Importer(Integer chunkSize) {
+            this.chunkSize = chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+        }
+        
+        void add(ProductDto product) {
+            pending.add(new Row(nextRowNumber(), product));
+            if (pending.size() >= chunkSize) {
+                flushChunk();
+            }
+        }
+        
+        void reject(String message) {
+            reject(nextRowNumber(), message);
+        }
+        
+        ImportResultDto finish() {
+            flushChunk();
+            result.setElapsedMillis(System.currentTimeMillis() - start);
+            if (result.getImportedRows() > 0) {
+                // 件数が多いため個別のイベントではなく再読み込みを通知する
+                productChangeFeed.publish(ProductChangeEventDto.Type.RELOAD, null, null, null);
+            }
+            log.info("Product import finished: {} imported, {} failed in {} ms",
+                    result.getImportedRows(), result.getFailedRows(), result.getElapsedMillis());
+            return result;
+        }
+        
+        private int nextRowNumber() {
+            result.setTotalRows(result.getTotalRows() + 1);
+            return result.getTotalRows();
+        }
+        
+        private void reject(int row, String message) {
+            result.setFailedRows(result.getFailedRows() + 1);
+            if (result.getErrors().size() < maxErrors) {
+                result.getErrors().add(new ImportResultDto.RowError(row, message));
+            }
+        }
+        
+        private void flushChunk() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            resolveCategories();
+            List<Row> valid = new ArrayList<>(pending.size());
+            for (Row row : pending) {
+                String error = validate(row.product());
+                if (error != null) {
+                    reject(row.number(), error);
+                } else {
+                    valid.add(row);
+                }
+            }
+            pending.clear();
+            if (valid.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> saveChunk(valid));
+                result.setImportedRows(result.getImportedRows() + valid.size());
+            } catch (DataAccessException | PersistenceException e) {
+                log.warn("Product import chunk rolled back: {}", e.getMessage());
+                for (Row row : valid) {
+                    reject(row.number(), "Chunk rolled back: " + e.getMessage());
+                }
+            }
+        }
+        
+        // チャンク内で未解決のカテゴリIDを1回のクエリでまとめて確認する
+        private void resolveCategories() {
+            Set<Long> unresolved = new HashSet<>();
+            for (Row row : pending) {
+                Long categoryId = categoryId(row.product());
+                if (categoryId != null && !knownCategoryIds.contains(categoryId) && !missingCategoryIds.contains(categoryId)) {
+                    unresolved.add(categoryId);
+                }
+            }
+            if (unresolved.isEmpty()) {
+                return;
+            }
+            for (Category category : categoryRepository.findAllById(unresolved)) {
+                knownCategoryIds.add(category.getCategoryId());
+            }
+            unresolved.removeAll(knownCategoryIds);
+            missingCategoryIds.addAll(unresolved);
+        }
+        
+        private String validate(ProductDto product) {
+            if (product.getName() == null || product.getName().isBlank()) {
+                return "name is required";
+            }
+            if (product.getUnitPrice() != null && product.getUnitPrice().signum() < 0) {
+                return "unitPrice must not be negative";
+            }
+            if (product.getUnitCost() != null && product.getUnitCost().signum() < 0) {
+                return "unitCost must not be negative";
+            }
+            if (product.getUnitsInStock() != null && product.getUnitsInStock() < 0) {
+                return "unitsInStock must not be negative";
+            }
+            Long categoryId = categoryId(product);
+            if (categoryId != null && missingCategoryIds.contains(categoryId)) {
+                return "Category not found with id: " + categoryId;
+            }
+            return null;
+        }
+        
+        private void saveChunk(List<Row> rows) {
+            List<Product> products = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                products.add(toEntity(row.product()));
+            }
+            productRepository.saveAll(products);
+            entityManager.flush();
+            entityManager.clear();
+            TransactionCallbacks.afterCommit(() -> products.forEach(product ->
+                    productSearchIndex.index(product.getProductId(), product.getName(), product.getCode())));
+        }
+        
+        private Product toEntity(ProductDto dto) {
+            Long categoryId = categoryId(dto);
+            return Product.builder()
+                    .name(dto.getName())
+                    .code(dto.getCode())
+                    .quantityPerUnit(dto.getQuantityPerUnit())
+                    .unitPrice(dto.getUnitPrice())
+                    .unitCost(dto.getUnitCost())
+                    .unitsInStock(dto.getUnitsInStock())
+                    .reorderLevel(dto.getReorderLevel())
+                    .discontinued(dto.getDiscontinued() != null ? dto.getDiscontinued() : false)
+                    .category(categoryId != null ? entityManager.getReference(Category.class, categoryId) : null)
+                    .build();
+        }
+        
+        private Long categoryId(ProductDto product) {
+            return product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+        }
+    }
+}
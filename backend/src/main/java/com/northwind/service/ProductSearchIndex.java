@@ -0,0 +1,279 @@
+package com.northwind.service;
+
+import com.northwind.repository.ProductRepository;
+import com.northwind.repository.ProductSearchRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// 商品名・商品コードのトライグラム転置インデックス（LIKE '%term%' による全件走査の代替）
+// 起動時に構築し、商品の作成・更新・削除・復元のコミット後に差分更新する
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+    
+    private static final int GRAM = 3;
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final ProductRepository productRepository;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // 内部文書番号ごとの商品ID・正規化済みの名前とコード
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] codes = new String[INITIAL_CAPACITY];
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> docByProductId = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int docCount;
+    
+    private volatile boolean ready;
+    
+    private record Match(long productId, int score, int nameLength) {
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            clear();
+            try (Stream<ProductSearchRow> rows = productRepository.streamSearchRows()) {
+                rows.forEach(row -> add(row.getProductId(), row.getName(), row.getCode()));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products in {} ms", size(), System.currentTimeMillis() - start);
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public int size() {
+        return docByProductId.size();
+    }
+    
+    public void index(Long productId, String name, String code) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+            add(productId, name, code);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByProductId.remove(productId);
+            if (doc != null) {
+                live.clear(doc);
+                names[doc] = null;
+                codes[doc] = null;
+            }
+            // 削除済み文書がポスティングの半分を超えたら詰め直す
+            if (docCount > INITIAL_CAPACITY && docByProductId.size() < docCount / 2) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void indexAfterCommit(Long productId, String name, String code) {
+        TransactionCallbacks.afterCommit(() -> index(productId, name, code));
+    }
+    
+    public void removeAfterCommit(Long productId) {
+        TransactionCallbacks.afterCommit(() -> remove(productId));
+    }
+    
+    public void indexAllAfterCommit(List<? extends ProductSearchRow> rows) {
+        TransactionCallbacks.afterCommit(() -> rows.forEach(row -> index(row.getProductId(), row.getName(), row.getCode())));
+    }
+    
+    public void removeAllAfterCommit(Collection<Long> productIds) {
+        TransactionCallbacks.afterCommit(() -> productIds.forEach(this::remove));
+    }
+    
+    // 部分一致する商品IDを関連度順（完全一致 > 前方一致 > 単語先頭一致 > 部分一致）に返す
+    public List<Long> search(String term) {
+        String query = normalize(term);
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>();
+            if (query.length() < GRAM) {
+                for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                    collect(doc, query, matches);
+                }
+            } else {
+                for (int doc : candidates(query)) {
+                    collect(doc, query, matches);
+                }
+            }
+            matches.sort(Comparator.comparingInt(Match::score)
+                    .thenComparingInt(Match::nameLength)
+                    .thenComparingLong(Match::productId));
+            return matches.stream().map(Match::productId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void collect(int doc, String query, List<Match> matches) {
+        if (!live.get(doc)) {
+            return;
+        }
+        int score = score(names[doc], codes[doc], query);
+        if (score >= 0) {
+            matches.add(new Match(productIds[doc], score, names[doc] != null ? names[doc].length() : 0));
+        }
+    }
+    
+    private static int score(String name, String code, String query) {
+        if (query.equals(name) || query.equals(code)) {
+            return 0;
+        }
+        if (name != null && name.startsWith(query)) {
+            return 1;
+        }
+        if (code != null && code.startsWith(query)) {
+            return 2;
+        }
+        if (name != null && name.contains(" " + query)) {
+            return 3;
+        }
+        if (name != null && name.contains(query)) {
+            return 4;
+        }
+        if (code != null && code.contains(query)) {
+            return 5;
+        }
+        return -1;
+    }
+    
+    // クエリの全トライグラムを含む文書の候補（最短のポスティングから順に積集合をとる）
+    private int[] candidates(String query) {
+        Set<String> grams = grams(query);
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+        int[] result = Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            Postings other = lists.get(i);
+            int n = 0;
+            for (int doc : result) {
+                if (Arrays.binarySearch(other.docs, 0, other.size, doc) >= 0) {
+                    result[n++] = doc;
+                }
+            }
+            result = Arrays.copyOf(result, n);
+        }
+        return result;
+    }
+    
+    private void add(Long productId, String name, String code) {
+        int doc = docCount++;
+        if (doc == productIds.length) {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+        }
+        productIds[doc] = productId;
+        names[doc] = name != null ? normalize(name) : null;
+        codes[doc] = code != null ? normalize(code) : null;
+        live.set(doc);
+        docByProductId.put(productId, doc);
+        
+        Set<String> grams = grams(names[doc]);
+        grams.addAll(grams(codes[doc]));
+        // 文書番号は単調増加なので、末尾追加でポスティングの昇順が保たれる
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(doc);
+        }
+    }
+    
+    private void compact() {
+        List<Object[]> entries = new ArrayList<>(docByProductId.size());
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            entries.add(new Object[]{productIds[doc], names[doc], codes[doc]});
+        }
+        clear();
+        for (Object[] entry : entries) {
+            add((Long) entry[0], (String) entry[1], (String) entry[2]);
+        }
+    }
+    
+    private void clear() {
+        productIds = new long[INITIAL_CAPACITY];
+        names = new String[INITIAL_CAPACITY];
+        codes = new String[INITIAL_CAPACITY];
+        live.clear();
+        docByProductId.clear();
+        postings.clear();
+        docCount = 0;
+    }
+    
+    private static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (value != null) {
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                grams.add(value.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    // 文書番号の昇順リスト
+    private static final class Postings {
+        
+        private int[] docs = new int[4];
+        private int size;
+        
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+        
+        int size() {
+            return size;
+        }
+    }
+}
@@ -1,30 +1,77 @@
 package com.northwind.service;
 
+import com.northwind.dto.BulkOperationResultDto;
+import com.northwind.dto.BulkProductRequestDto;
+import com.northwind.dto.CursorPageDto;
+import com.northwind.dto.ProductBatchDto;
+import com.northwind.dto.ProductChangeEventDto;
 import com.northwind.dto.ProductDto;
+import com.northwind.dto.StockMovementRequestDto;
+import com.northwind.dto.StockMovementResultDto;
 import com.northwind.entity.Category;
+import com.northwind.entity.CustomerOrder;
 import com.northwind.entity.Product;
 import com.northwind.exception.CannotDeleteProductException;
+import com.northwind.exception.InsufficientStockException;
 import com.northwind.exception.ProductNotFoundException;
+import com.northwind.exception.ProductVersionConflictException;
+import com.northwind.exception.StockLimitExceededException;
 import com.northwind.repository.CategoryRepository;
+import com.northwind.repository.OrderDetailRepository;
+import com.northwind.repository.ProductBulkFilter;
+import com.northwind.repository.ProductField;
+import com.northwind.repository.ProductFieldsRow;
+import com.northwind.repository.ProductKeyset;
 import com.northwind.repository.ProductRepository;
+import com.northwind.repository.ProductMarkRow;
+import com.northwind.repository.ProductStateRow;
+import com.northwind.repository.ProductStockRow;
+import com.northwind.repository.ProductVersion;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ProductService {
     
+    // 一括取得時のIN句のパラメータ数の上限
+    private static final int BATCH_IN_CHUNK_SIZE = 1000;
+    
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final OrderDetailRepository orderDetailRepository;
     private final ProductMapper productMapper;
+    private final EntityManager entityManager;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductChangeFeed productChangeFeed;
+    private final CatalogChangeCounter catalogChangeCounter;
+    
+    @Value("${northwind.products.batch.max-ids:500}")
+    private int batchMaxIds;
     
     public List<ProductDto> getAllProducts() {
         return productRepository.findByDeletedFalse()
@@ -33,15 +80,132 @@ public class ProductService {
                 .toList();
     }
     
+    // 全商品を1件ずつDTOに変換して渡す（変換済みエンティティは即座にデタッチしてヒープを一定に保つ）
+    public void streamAllProducts(Consumer<ProductDto> consumer) {
+        try (Stream<Product> products = productRepository.streamByDeletedFalse()) {
+            products.forEach(product -> {
+                consumer.accept(productMapper.toDto(product));
+                entityManager.detach(product);
+            });
+        }
+    }
+    
     public Page<ProductDto> getAllProducts(Pageable pageable) {
         return productRepository.findByDeletedFalse(pageable)
                 .map(productMapper::toDto);
     }
     
+    // カーソルベースのページング（after: 前ページのnextCursor）
+    public CursorPageDto<ProductDto> getProductsAfter(String after, int size, String sortKey, boolean includeTotal) {
+        ProductKeyset position = ProductCursor.decode(after, sortKey);
+        // 1件多く読んで次ページの有無を判定する
+        List<Product> rows = productRepository.findAfter(null, ProductCursor.sortKey(sortKey), position, size + 1);
+        Long total = includeTotal ? productRepository.countByDeletedFalse() : null;
+        return toCursorPage(rows, size, sortKey, total);
+    }
+    
+    public CursorPageDto<ProductDto> searchProductsAfter(String name, String after, int size, String sortKey, boolean includeTotal) {
+        ProductKeyset position = ProductCursor.decode(after, sortKey);
+        List<Product> rows = productRepository.findAfter(name, ProductCursor.sortKey(sortKey), position, size + 1);
+        Long total = includeTotal ? productRepository.countByNameContainingIgnoreCaseAndDeletedFalse(name) : null;
+        return toCursorPage(rows, size, sortKey, total);
+    }
+    
+    private CursorPageDto<ProductDto> toCursorPage(List<Product> rows, int size, String sortKey, Long total) {
+        boolean hasNext = rows.size() > size;
+        List<Product> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? ProductCursor.encode(sortKey, page.get(page.size() - 1)) : null;
+        return CursorPageDto.<ProductDto>builder()
+                .content(page.stream().map(productMapper::toDto).toList())
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(total)
+                .build();
+    }
+    
     public Optional<ProductDto> getProductById(Long id) {
+        return getVersionedProduct(id).map(ProductCache.Entry::product);
+    }
+    
+    // 複数IDの一括取得: キャッシュにない商品だけをIN句（category/supplierをフェッチ結合）でまとめて取得する
+    public ProductBatchDto getProductsByIds(List<Long> ids) {
+        if (ids.size() > batchMaxIds) {
+            throw new IllegalArgumentException("At most " + batchMaxIds + " ids can be requested at once");
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("Product ids must not be null");
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Map<Long, ProductCache.Entry> entries = new HashMap<>(productCache.getAll(distinctIds));
+        List<Long> missing = distinctIds.stream()
+                .filter(id -> !entries.containsKey(id))
+                .toList();
+        for (int from = 0; from < missing.size(); from += BATCH_IN_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + BATCH_IN_CHUNK_SIZE, missing.size()));
+            for (Product product : productRepository.findByProductIdIn(chunk)) {
+                // 削除済み商品はトゥームストーンとしてキャッシュする
+                ProductCache.Entry entry = toCacheEntry(product, product.getDeleted() ? null : productMapper.toDto(product));
+                productCache.put(product.getProductId(), entry);
+                entries.put(product.getProductId(), entry);
+            }
+        }
+        ProductBatchDto result = new ProductBatchDto();
+        for (Long id : ids) {
+            ProductCache.Entry entry = entries.get(id);
+            if (entry == null || entry.product() == null) {
+                result.getItems().add(ProductBatchDto.Item.builder().productId(id).found(false).build());
+                result.getNotFound().add(id);
+            } else {
+                result.getItems().add(ProductBatchDto.Item.builder()
+                        .productId(id)
+                        .found(true)
+                        .version(entry.version())
+                        .product(entry.product())
+                        .build());
+            }
+        }
+        return result;
+    }
+    
+    // バージョン付きで取得する（ETag用）
+    public Optional<ProductCache.Entry> getVersionedProduct(Long id) {
+        ProductCache.Entry cached = productCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached).filter(entry -> entry.product() != null);
+        }
         return productRepository.findById(id)
-                .filter(product -> !product.getDeleted())
-                .map(productMapper::toDto);
+                .map(product -> {
+                    // 削除済み商品はトゥームストーンとしてキャッシュする
+                    ProductCache.Entry entry = toCacheEntry(product, product.getDeleted() ? null : productMapper.toDto(product));
+                    productCache.put(id, entry);
+                    return entry;
+                })
+                .filter(entry -> entry.product() != null);
+    }
+    
+    // 条件付きGET用: DTOに変換せずに現在のバージョンのみを取得する
+    public Optional<ProductVersion> getProductVersion(Long id) {
+        ProductCache.Entry cached = productCache.get(id);
+        if (cached != null) {
+            return cached.product() != null
+                    ? Optional.of(new ProductVersion(cached.version(), cached.categoryVersion()))
+                    : Optional.empty();
+        }
+        return productRepository.findActiveVersion(id);
+    }
+    
+    // DTOにはカテゴリ名が含まれるため、カテゴリのバージョンも合わせて保持する
+    private static ProductCache.Entry toCacheEntry(Product product, ProductDto dto) {
+        long categoryVersion = product.getCategory() != null && product.getCategory().getVersion() != null
+                ? product.getCategory().getVersion()
+                : 0;
+        return new ProductCache.Entry(product.getVersion(), categoryVersion, dto);
+    }
+    
+    // 条件付きGET用: 商品一覧の変更件数（DBを集計しない）
+    public CatalogChangeCounter.Version getCatalogVersion() {
+        return catalogChangeCounter.current();
     }
     
     public List<ProductDto> getActiveProducts() {
@@ -52,10 +216,30 @@ public class ProductService {
     }
     
     public Page<ProductDto> searchProducts(String name, Pageable pageable) {
+        // ソート指定がなければインメモリのN-gramインデックスで関連度順に検索する
+        if (productSearchIndex.isReady() && pageable.isPaged() && pageable.getSort().isUnsorted()) {
+            List<Long> ids = productSearchIndex.search(name);
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + pageable.getPageSize(), ids.size());
+            return new PageImpl<>(findProductsInOrder(ids.subList(from, to)), pageable, ids.size());
+        }
         return productRepository.findByNameContainingIgnoreCaseAndDeletedFalse(name, pageable)
                 .map(productMapper::toDto);
     }
     
+    // 指定されたIDの順序を保ったまま1回のINクエリで取得する
+    private List<ProductDto> findProductsInOrder(List<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findByProductIdIn(ids)) {
+            products.put(product.getProductId(), product);
+        }
+        return ids.stream()
+                .map(products::get)
+                .filter(product -> product != null && !product.getDeleted())
+                .map(productMapper::toDto)
+                .toList();
+    }
+    
     public List<ProductDto> getProductsByCategory(Long categoryId) {
         return productRepository.findByCategoryId(categoryId)
                 .stream()
@@ -63,6 +247,35 @@ public class ProductService {
                 .toList();
     }
     
+    // スパースフィールドセット: 要求された列だけを射影し、エンティティ・DTOを生成せずに返す
+    public Page<ProductFieldsRow> getAllProductFields(List<ProductField> fields, Pageable pageable) {
+        return productRepository.findFields(fields, null, null, pageable);
+    }
+    
+    public Page<ProductFieldsRow> searchProductFields(String name, List<ProductField> fields, Pageable pageable) {
+        // 並び順は searchProducts と同じく、ソート指定がなければN-gramインデックスの関連度順
+        if (productSearchIndex.isReady() && pageable.isPaged() && pageable.getSort().isUnsorted()) {
+            List<Long> ids = productSearchIndex.search(name);
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + pageable.getPageSize(), ids.size());
+            List<Long> pageIds = ids.subList(from, to);
+            Map<Long, ProductFieldsRow> rows = new HashMap<>();
+            for (ProductFieldsRow row : productRepository.findFieldsByIds(fields, pageIds)) {
+                rows.put(row.getProductId(), row);
+            }
+            List<ProductFieldsRow> content = pageIds.stream()
+                    .map(rows::get)
+                    .filter(row -> row != null)
+                    .toList();
+            return new PageImpl<>(content, pageable, ids.size());
+        }
+        return productRepository.findFields(fields, name, null, pageable);
+    }
+    
+    public List<ProductFieldsRow> getProductFieldsByCategory(Long categoryId, List<ProductField> fields) {
+        return productRepository.findFields(fields, null, categoryId, Pageable.unpaged()).getContent();
+    }
+    
     public List<ProductDto> getLowStockProducts() {
         return productRepository.findLowStockProducts()
                 .stream()
@@ -70,6 +283,11 @@ public class ProductService {
                 .toList();
     }
     
+    public Page<ProductDto> getLowStockProducts(Pageable pageable) {
+        return productRepository.findByLowStockTrueAndDeletedFalse(pageable)
+                .map(productMapper::toDto);
+    }
+    
     // 削除済み商品を取得（管理用）
     public List<ProductDto> getDeletedProducts() {
         return productRepository.findByDeletedTrue()
@@ -88,8 +306,12 @@ public class ProductService {
             );
         }
         
-        // 2. 進行中の注文チェック（将来的に実装）
-        // TODO: 注文エンティティが実装されたら、進行中の注文があるかチェック
+        // 2. 進行中の注文チェック
+        if (orderDetailRepository.existsByProductIdAndCustomerOrderStatus(product.getProductId(), CustomerOrder.Status.NEW)) {
+            throw new CannotDeleteProductException(
+                "Cannot delete product with open orders. Please ship or cancel them before deleting."
+            );
+        }
         
         // 3. 既に削除済みかチェック
         if (product.getDeleted()) {
@@ -133,6 +355,10 @@ public class ProductService {
             System.out.println("Saved product: " + savedProduct);
             
             ProductDto result = productMapper.toDto(savedProduct);
+            productCache.putAfterCommit(savedProduct.getProductId(), toCacheEntry(savedProduct, result));
+            productSearchIndex.indexAfterCommit(savedProduct.getProductId(), savedProduct.getName(), savedProduct.getCode());
+            productChangeFeed.publishAfterCommit(ProductChangeEventDto.Type.CREATED,
+                    savedProduct.getProductId(), savedProduct.getVersion(), result);
             System.out.println("Returning DTO: " + result);
             return result;
         } catch (Exception e) {
@@ -144,6 +370,13 @@ public class ProductService {
     
     @Transactional
     public ProductDto updateProduct(Long id, ProductDto productDto) {
+        return updateProduct(id, productDto, null).product();
+    }
+    
+    // expectedVersion: If-Match で指定されたバージョン（nullの場合は検証しない）
+    // 戻り値は保存したバージョンとDTOの組（コミット後に読み直すと他のリクエストの更新後のバージョンをETagにしてしまうため）
+    @Transactional
+    public ProductCache.Entry updateProduct(Long id, ProductDto productDto, Long expectedVersion) {
         System.out.println("=== ProductService.updateProduct called ===");
         System.out.println("Looking for product with ID: " + id);
         System.out.println("ProductDto received: " + productDto);
@@ -153,6 +386,11 @@ public class ProductService {
                 .map(existingProduct -> {
                     System.out.println("Found existing product: " + existingProduct);
                     
+                    // 他のリクエストによる変更を上書きしない
+                    if (expectedVersion != null && !expectedVersion.equals(existingProduct.getVersion())) {
+                        throw new ProductVersionConflictException(id);
+                    }
+                    
                     // カテゴリーの更新を手動で処理
                     if (productDto.getCategory() != null && productDto.getCategory().getCategoryId() != null) {
                         // カテゴリーIDが変更されている場合のみ更新
@@ -180,9 +418,15 @@ public class ProductService {
                     existingProduct.setDiscontinued(productDto.getDiscontinued());
                     
                     System.out.println("Updated product: " + existingProduct);
-                    Product savedProduct = productRepository.save(existingProduct);
+                    // flushしてインクリメント後のバージョンを確定させる
+                    Product savedProduct = productRepository.saveAndFlush(existingProduct);
                     System.out.println("Saved product: " + savedProduct);
-                    return productMapper.toDto(savedProduct);
+                    ProductDto result = productMapper.toDto(savedProduct);
+                    ProductCache.Entry entry = toCacheEntry(savedProduct, result);
+                    productCache.putAfterCommit(id, entry);
+                    productSearchIndex.indexAfterCommit(id, savedProduct.getName(), savedProduct.getCode());
+                    productChangeFeed.publishAfterCommit(ProductChangeEventDto.Type.UPDATED, id, savedProduct.getVersion(), result);
+                    return entry;
                 })
                 .orElseThrow(() -> {
                     System.out.println("Product not found with id: " + id);
@@ -209,7 +453,10 @@ public class ProductService {
         product.setDeletedBy(getCurrentUser());
         product.setDeletionReason(reason);
         
-        productRepository.save(product);
+        Product savedProduct = productRepository.saveAndFlush(product);
+        productCache.putAfterCommit(id, toCacheEntry(savedProduct, null));
+        productSearchIndex.removeAfterCommit(id);
+        productChangeFeed.publishAfterCommit(ProductChangeEventDto.Type.DELETED, id, savedProduct.getVersion(), null);
         
         System.out.println("Product logically deleted: " + product.getName() + " (ID: " + id + ")");
     }
@@ -229,8 +476,188 @@ public class ProductService {
         product.setDeletedBy(null);
         product.setDeletionReason(null);
         
-        productRepository.save(product);
+        Product savedProduct = productRepository.saveAndFlush(product);
+        ProductDto restored = productMapper.toDto(savedProduct);
+        productCache.putAfterCommit(id, toCacheEntry(savedProduct, restored));
+        productSearchIndex.indexAfterCommit(id, savedProduct.getName(), savedProduct.getCode());
+        productChangeFeed.publishAfterCommit(ProductChangeEventDto.Type.RESTORED, id, savedProduct.getVersion(), restored);
         
         System.out.println("Product restored: " + product.getName() + " (ID: " + id + ")");
     }
+    
+    // 一括論理削除: 削除前の検証ルール（在庫0・未削除）をUPDATEの条件として適用する
+    @Transactional
+    public BulkOperationResultDto bulkDeleteProducts(BulkProductRequestDto request) {
+        ProductBulkFilter filter = toBulkFilter(request);
+        LocalDateTime now = LocalDateTime.now();
+        String user = getCurrentUser();
+        
+        List<ProductMarkRow> accepted = productRepository.markDeleted(filter, request.getReason(), user, now);
+        Map<Long, Long> versions = toVersions(accepted);
+        Set<Long> acceptedIds = versions.keySet();
+        
+        BulkOperationResultDto result = new BulkOperationResultDto();
+        result.getAccepted().addAll(acceptedIds);
+        List<ProductStateRow> rejected = filter.ids() != null
+                ? productRepository.findStates(filter.withIds(remainingIds(filter, acceptedIds)), null)
+                : productRepository.findStates(filter, false);
+        addRejections(result, filter, acceptedIds, rejected, state -> {
+            if (state.getDeleted()) {
+                return "Product is already deleted";
+            }
+            if (state.getUnitsInStock() != null && state.getUnitsInStock() > 0) {
+                return "Cannot delete product with remaining stock: " + state.getUnitsInStock() + " units";
+            }
+            if (state.getOpenOrders()) {
+                return "Cannot delete product with open orders";
+            }
+            return "Product does not match the filter";
+        });
+        
+        productCache.putDeletedAfterCommit(versions);
+        productSearchIndex.removeAllAfterCommit(acceptedIds);
+        versions.forEach((productId, version) ->
+                productChangeFeed.publishAfterCommit(ProductChangeEventDto.Type.DELETED, productId, version, null));
+        log.info("Products logically deleted: {}, rejected: {}", acceptedIds.size(), result.getRejected().size());
+        return result;
+    }
+    
+    // 一括復元: 論理削除済みの商品のみを対象とする
+    @Transactional
+    public BulkOperationResultDto bulkRestoreProducts(BulkProductRequestDto request) {
+        ProductBulkFilter filter = toBulkFilter(request);
+        LocalDateTime now = LocalDateTime.now();
+        String user = getCurrentUser();
+        
+        List<ProductMarkRow> accepted = productRepository.markRestored(filter, user, now);
+        Map<Long, Long> versions = toVersions(accepted);
+        Set<Long> acceptedIds = versions.keySet();
+        
+        BulkOperationResultDto result = new BulkOperationResultDto();
+        result.getAccepted().addAll(acceptedIds);
+        if (filter.ids() != null) {
+            List<ProductStateRow> rejected = productRepository.findStates(filter.withIds(remainingIds(filter, acceptedIds)), null);
+            addRejections(result, filter, acceptedIds, rejected, state ->
+                    state.getDeleted() ? "Product does not match the filter" : "Product is not deleted");
+        }
+        
+        productCache.invalidateAfterCommit(versions);
+        productSearchIndex.indexAllAfterCommit(accepted);
+        // 一括復元では商品全体を読み込まないため、対象IDとバージョンのみを通知する
+        versions.forEach((productId, version) ->
+                productChangeFeed.publishAfterCommit(ProductChangeEventDto.Type.RESTORED, productId, version, null));
+        log.info("Products restored: {}, rejected: {}", acceptedIds.size(), result.getRejected().size());
+        return result;
+    }
+    
+    private static Map<Long, Long> toVersions(List<ProductMarkRow> rows) {
+        Map<Long, Long> versions = new HashMap<>();
+        rows.forEach(row -> versions.put(row.getProductId(), row.getVersion()));
+        return versions;
+    }
+    
+    // 在庫移動（入荷・出庫・調整）: 在庫数を差分で更新し、1行でも適用できなければ全体をロールバックする
+    @Transactional
+    public StockMovementResultDto moveStock(StockMovementRequestDto request) {
+        SortedMap<Long, Integer> deltas = toStockDeltas(request);
+        LocalDateTime now = LocalDateTime.now();
+        
+        List<Long> updated = productRepository.addStock(deltas, getCurrentUser(), now);
+        if (updated.size() < deltas.size()) {
+            Long failedId = deltas.keySet().stream().filter(id -> !updated.contains(id)).findFirst().orElseThrow();
+            throw stockRejection(failedId, deltas.get(failedId));
+        }
+        
+        StockMovementResultDto result = StockMovementResultDto.builder()
+                .type(request.getType())
+                .reference(request.getReference())
+                .build();
+        Map<Long, ProductStockRow> rows = new HashMap<>();
+        productRepository.findStock(deltas.keySet()).forEach(row -> rows.put(row.getProductId(), row));
+        deltas.forEach((productId, delta) -> {
+            ProductStockRow row = rows.get(productId);
+            result.getLines().add(new StockMovementResultDto.Line(productId, delta, row.getUnitsInStock(), row.getVersion()));
+        });
+        
+        Map<Long, Long> versions = new HashMap<>();
+        rows.forEach((productId, row) -> versions.put(productId, row.getVersion()));
+        productCache.invalidateAfterCommit(versions);
+        // 在庫移動では商品全体を読み込まないため、対象IDとバージョンのみを通知する
+        result.getLines().forEach(line -> productChangeFeed.publishAfterCommit(
+                ProductChangeEventDto.Type.UPDATED, line.getProductId(), line.getVersion(), null));
+        return result;
+    }
+    
+    // 在庫の差分更新が適用できなかった理由（削除済み・存在しない、在庫不足、または上限超過）
+    RuntimeException stockRejection(Long productId, int delta) {
+        List<ProductStateRow> states = productRepository.findStates(
+                new ProductBulkFilter(List.of(productId), null, null, null), null);
+        if (states.isEmpty() || states.get(0).getDeleted()) {
+            return new ProductNotFoundException(productId);
+        }
+        if (delta > 0) {
+            return new StockLimitExceededException(productId, states.get(0).getUnitsInStock(), delta);
+        }
+        return new InsufficientStockException(productId, states.get(0).getUnitsInStock(), delta);
+    }
+    
+    // 種別ごとに符号を付け、同じ商品の行は合算する（商品ID順）
+    private static SortedMap<Long, Integer> toStockDeltas(StockMovementRequestDto request) {
+        if (request.getType() == null || request.getLines() == null || request.getLines().isEmpty()) {
+            throw new IllegalArgumentException("type and at least one line are required");
+        }
+        SortedMap<Long, Integer> deltas = new TreeMap<>();
+        for (StockMovementRequestDto.Line line : request.getLines()) {
+            if (line.getProductId() == null || line.getQuantity() == null) {
+                throw new IllegalArgumentException("productId and quantity are required");
+            }
+            int quantity = line.getQuantity();
+            // 符号を反転しても int に収まる範囲に限る
+            if (quantity == Integer.MIN_VALUE) {
+                throw new IllegalArgumentException("Quantity out of range: " + quantity);
+            }
+            int delta = switch (request.getType()) {
+                case RECEIVE -> quantity;
+                case PICK -> -quantity;
+                case ADJUST -> quantity;
+            };
+            if (request.getType() == StockMovementRequestDto.Type.ADJUST ? quantity == 0 : quantity <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for " + request.getType() + ": " + quantity);
+            }
+            try {
+                deltas.merge(line.getProductId(), delta, Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Total quantity out of range for product " + line.getProductId());
+            }
+        }
+        return deltas;
+    }
+    
+    private static ProductBulkFilter toBulkFilter(BulkProductRequestDto request) {
+        List<Long> ids = request.getIds() != null ? request.getIds().stream().distinct().toList() : null;
+        ProductBulkFilter filter = new ProductBulkFilter(
+                ids, request.getCategoryId(), request.getSupplierId(), request.getDiscontinued());
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("At least one of ids, categoryId, supplierId or discontinued is required");
+        }
+        return filter;
+    }
+    
+    private static List<Long> remainingIds(ProductBulkFilter filter, Set<Long> acceptedIds) {
+        return filter.ids().stream().filter(id -> !acceptedIds.contains(id)).toList();
+    }
+    
+    private static void addRejections(BulkOperationResultDto result, ProductBulkFilter filter, Set<Long> acceptedIds,
+                                      List<ProductStateRow> states, Function<ProductStateRow, String> reason) {
+        Map<Long, ProductStateRow> byId = new HashMap<>();
+        states.forEach(state -> byId.put(state.getProductId(), state));
+        List<Long> candidates = filter.ids() != null
+                ? remainingIds(filter, acceptedIds)
+                : new ArrayList<>(byId.keySet());
+        for (Long id : candidates) {
+            ProductStateRow state = byId.get(id);
+            String message = state == null ? "Product not found" : reason.apply(state);
+            result.getRejected().add(new BulkOperationResultDto.Rejection(id, message));
+        }
+    }
 }
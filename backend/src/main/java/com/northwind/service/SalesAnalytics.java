@@ -0,0 +1,396 @@
+package com.northwind.service;
+
+import com.northwind.dto.ProductDto;
+import com.northwind.dto.SalesReportDto;
+import com.northwind.entity.CustomerOrder;
+import com.northwind.entity.OrderDetail;
+import com.northwind.entity.Report;
+import com.northwind.entity.SoldProductView;
+import com.northwind.repository.CategoryRepository;
+import com.northwind.repository.OrderDetailRepository;
+import com.northwind.repository.ReportRepository;
+import com.northwind.repository.SalesLineRow;
+import com.northwind.repository.SoldProductViewRepository;
+import com.northwind.repository.SupplierRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 売上分析: 商品×日ごとの売上数量・売上額・原価をメモリ上で逐次集計する
+// - 受注のコミット後に加算し、キャンセルのコミット後に差し引く
+// - レポートは集計結果だけから作る（受注・商品テーブルには問い合わせない）
+// - カテゴリ・仕入先・日単位の集計は、専用の ForkJoinPool 上の並列ストリームで商品×日のセルを畳み込む
+// - 定期的に nw_reports / nw_sold_product_view へスナップショットを保存し、起動時はスナップショットと
+//   それ以降の受注明細から復元する
+@Component
+@Slf4j
+public class SalesAnalytics {
+    
+    private static final int SNAPSHOT_CHUNK_SIZE = 1000;
+    
+    // 集計時点の商品の属性（名前・分類）。原価は受注明細に保存した受付時点の値を使う
+    private record ProductInfo(String name, Long categoryId, Long supplierId) {
+    }
+    
+    // 商品×日の集計セル（金額は銭単位の整数で加算する）
+    private static final class Cell {
+    
+        final long productId;
+        final LocalDate day;
+        final Long categoryId;
+        final Long supplierId;
+        final LongAdder quantity = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+        final LongAdder costCents = new LongAdder();
+    
+        Cell(long productId, LocalDate day, Long categoryId, Long supplierId) {
+            this.productId = productId;
+            this.day = day;
+            this.categoryId = categoryId;
+            this.supplierId = supplierId;
+        }
+    }
+    
+    // グループごとの合計（並列集計の部分結果）
+    private static final class Totals {
+    
+        long quantity;
+        long revenueCents;
+        long costCents;
+    
+        void add(Cell cell) {
+            quantity += cell.quantity.sum();
+            revenueCents += cell.revenueCents.sum();
+            costCents += cell.costCents.sum();
+        }
+    
+        Totals merge(Totals other) {
+            quantity += other.quantity;
+            revenueCents += other.revenueCents;
+            costCents += other.costCents;
+            return this;
+        }
+    }
+    
+    private static final Collector<Cell, Totals, Totals> TOTALS = Collector.of(Totals::new, Totals::add, Totals::merge);
+    
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final Map<Long, ProductInfo> products = new ConcurrentHashMap<>();
+    private final Map<Long, String> categoryNames = new ConcurrentHashMap<>();
+    private final Map<Long, String> supplierNames = new ConcurrentHashMap<>();
+    // 集計に含まれる最大の受注ID（スナップショットの基準）
+    private final AtomicLong throughOrderId = new AtomicLong();
+    // キャンセルの反映回数（受注IDが進まない変更をスナップショットの要否判定に含める）
+    private final AtomicLong cancellations = new AtomicLong();
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private volatile long snapshotThroughOrderId;
+    private volatile long snapshotCancellations;
+    
+    private final OrderDetailRepository orderDetailRepository;
+    private final ReportRepository reportRepository;
+    private final SoldProductViewRepository soldProductViewRepository;
+    private final CategoryRepository categoryRepository;
+    private final SupplierRepository supplierRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool queryPool;
+    private final long snapshotIntervalMinutes;
+    private ScheduledExecutorService snapshotScheduler;
+    
+    public SalesAnalytics(OrderDetailRepository orderDetailRepository,
+                          ReportRepository reportRepository,
+                          SoldProductViewRepository soldProductViewRepository,
+                          CategoryRepository categoryRepository,
+                          SupplierRepository supplierRepository,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${northwind.analytics.parallelism:0}") int parallelism,
+                          @Value("${northwind.analytics.snapshot-interval-minutes:15}") long snapshotIntervalMinutes) {
+        this.orderDetailRepository = orderDetailRepository;
+        this.reportRepository = reportRepository;
+        this.soldProductViewRepository = soldProductViewRepository;
+        this.categoryRepository = categoryRepository;
+        this.supplierRepository = supplierRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queryPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.snapshotIntervalMinutes = snapshotIntervalMinutes;
+    }
+    
+    @PostConstruct
+    void start() {
+        restore();
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("sales-snapshot").factory());
+        snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+                snapshotIntervalMinutes, snapshotIntervalMinutes, TimeUnit.MINUTES);
+    }
+    
+    @PreDestroy
+    void stop() {
+        snapshotScheduler.shutdownNow();
+        snapshotQuietly();
+        queryPool.shutdown();
+    }
+    
+    // 受付時に参照した商品の属性を覚えておく（コミット後の集計で商品テーブルを読まないため）
+    public void rememberProduct(ProductDto product) {
+        Long categoryId = product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+        Long supplierId = product.getSupplier() != null ? product.getSupplier().getSupplierId() : null;
+        products.put(product.getProductId(), new ProductInfo(product.getName(), categoryId, supplierId));
+        if (categoryId != null && product.getCategory().getName() != null) {
+            categoryNames.put(categoryId, product.getCategory().getName());
+        }
+        if (supplierId != null && product.getSupplier().getCompanyName() != null) {
+            supplierNames.put(supplierId, product.getSupplier().getCompanyName());
+        }
+    }
+    
+    public void recordAfterCommit(List<CustomerOrder> orders) {
+        List<CustomerOrder> committed = List.copyOf(orders);
+        TransactionCallbacks.afterCommit(() -> committed.forEach(this::record));
+    }
+    
+    // キャンセルした受注をコミット後に集計から差し引く
+    // キャンセルの確定（modifiedDate の更新）から差し引きまでの間にスナップショットが入らないよう、
+    // トランザクションの完了まで読み取りロックを保持する（復元時の差し引き要否を takenAt で判定するため）
+    public void cancelAfterCommit(CustomerOrder order) {
+        snapshotLock.readLock().lock();
+        TransactionCallbacks.afterCommit(() -> {
+            addLines(order, -1);
+            cancellations.incrementAndGet();
+        });
+        TransactionCallbacks.afterCompletion(() -> snapshotLock.readLock().unlock());
+    }
+    
+    private void record(CustomerOrder order) {
+        snapshotLock.readLock().lock();
+        try {
+            addLines(order, 1);
+            throughOrderId.accumulateAndGet(order.getCustomerOrderId(), Math::max);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+    
+    private void addLines(CustomerOrder order, int sign) {
+        LocalDate day = order.getOrderDate().toLocalDate();
+        for (OrderDetail detail : order.getDetails()) {
+            ProductInfo info = products.getOrDefault(detail.getProductId(), new ProductInfo(null, null, null));
+            add(detail.getProductId(), day, info, sign * detail.getQuantity(), detail.getUnitPrice(), detail.getDiscount(),
+                    detail.getUnitCost());
+        }
+    }
+    
+    private void add(long productId, LocalDate day, ProductInfo info, int quantity, BigDecimal unitPrice, BigDecimal discount,
+                     BigDecimal unitCost) {
+        BigDecimal gross = unitPrice != null ? unitPrice.multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+        BigDecimal revenue = discount != null ? gross.multiply(BigDecimal.ONE.subtract(discount)) : gross;
+        BigDecimal cost = unitCost != null ? unitCost.multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+        Cell cell = cell(productId, day, info.categoryId(), info.supplierId());
+        cell.quantity.add(quantity);
+        cell.revenueCents.add(toCents(revenue));
+        cell.costCents.add(toCents(cost));
+    }
+    
+    private Cell cell(long productId, LocalDate day, Long categoryId, Long supplierId) {
+        // 商品IDは40ビットに収まる前提で、日と組み合わせて1つのlongキーにする
+        long key = (day.toEpochDay() << 40) | productId;
+        return cells.computeIfAbsent(key, k -> new Cell(productId, day, categoryId, supplierId));
+    }
+    
+    public SalesReportDto report(SalesReportDto.GroupBy groupBy, LocalDate from, LocalDate to, int limit) {
+        Function<Cell, Object> key = switch (groupBy) {
+            case PRODUCT -> cell -> cell.productId;
+            case CATEGORY -> cell -> cell.categoryId != null ? cell.categoryId : -1L;
+            case SUPPLIER -> cell -> cell.supplierId != null ? cell.supplierId : -1L;
+            case DAY -> cell -> cell.day;
+        };
+        // 並列ストリームを専用プールで実行し、部分ごとの集計結果を合成する
+        Map<Object, Totals> groups = queryPool.submit(() -> cells.values().parallelStream()
+                .filter(cell -> (from == null || !cell.day.isBefore(from)) && (to == null || !cell.day.isAfter(to)))
+                .collect(Collectors.groupingBy(key, TOTALS))).join();
+    
+        Totals total = new Totals();
+        groups.values().forEach(total::merge);
+        Comparator<Map.Entry<Object, Totals>> order = groupBy == SalesReportDto.GroupBy.DAY
+                ? Comparator.comparing(entry -> (LocalDate) entry.getKey())
+                : Comparator.comparingLong((Map.Entry<Object, Totals> entry) -> entry.getValue().revenueCents).reversed();
+        List<SalesReportDto.Row> rows = groups.entrySet().stream()
+                .sorted(order)
+                .limit(limit)
+                .map(entry -> toRow(groupBy, entry.getKey(), entry.getValue()))
+                .toList();
+        return SalesReportDto.builder()
+                .groupBy(groupBy)
+                .from(from)
+                .to(to)
+                .total(toRow(groupBy, null, total))
+                .rows(new ArrayList<>(rows))
+                .build();
+    }
+    
+    private SalesReportDto.Row toRow(SalesReportDto.GroupBy groupBy, Object key, Totals totals) {
+        String name = null;
+        if (key instanceof Long id && id >= 0) {
+            name = switch (groupBy) {
+                case PRODUCT -> products.containsKey(id) ? products.get(id).name() : null;
+                case CATEGORY -> categoryNames.get(id);
+                case SUPPLIER -> supplierNames.get(id);
+                case DAY -> null;
+            };
+        }
+        BigDecimal revenue = BigDecimal.valueOf(totals.revenueCents, 2);
+        BigDecimal cost = BigDecimal.valueOf(totals.costCents, 2);
+        BigDecimal margin = revenue.subtract(cost);
+        return SalesReportDto.Row.builder()
+                .key(key == null || Long.valueOf(-1L).equals(key) ? null : key.toString())
+                .name(name)
+                .quantity(totals.quantity)
+                .revenue(revenue)
+                .cost(cost)
+                .margin(margin)
+                .marginRate(revenue.signum() != 0 ? margin.divide(revenue, 4, RoundingMode.HALF_UP) : null)
+                .build();
+    }
+    
+    // 前回のスナップショット以降に加算・差し引きがあった場合のみ保存する（最新の1世代だけを残す）
+    public boolean snapshot() {
+        List<SoldProductView> rows = new ArrayList<>();
+        long through;
+        long cancelled;
+        LocalDateTime takenAt;
+        snapshotLock.writeLock().lock();
+        try {
+            through = throughOrderId.get();
+            cancelled = cancellations.get();
+            if (through == snapshotThroughOrderId && cancelled == snapshotCancellations) {
+                return false;
+            }
+            takenAt = LocalDateTime.now();
+            for (Cell cell : cells.values()) {
+                ProductInfo info = products.get(cell.productId);
+                rows.add(SoldProductView.builder()
+                        .salesDate(cell.day)
+                        .productId(cell.productId)
+                        .productName(info != null ? info.name() : null)
+                        .categoryId(cell.categoryId)
+                        .supplierId(cell.supplierId)
+                        .quantity(cell.quantity.sum())
+                        .revenue(BigDecimal.valueOf(cell.revenueCents.sum(), 2))
+                        .cost(BigDecimal.valueOf(cell.costCents.sum(), 2))
+                        .build());
+            }
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Report report = reportRepository.save(Report.builder()
+                    .type(Report.SALES_ROLLUP)
+                    .takenAt(takenAt)
+                    .throughOrderId(through)
+                    .build());
+            for (int i = 0; i < rows.size(); i += SNAPSHOT_CHUNK_SIZE) {
+                List<SoldProductView> chunk = rows.subList(i, Math.min(i + SNAPSHOT_CHUNK_SIZE, rows.size()));
+                chunk.forEach(row -> row.setReportId(report.getReportId()));
+                soldProductViewRepository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+            }
+            soldProductViewRepository.deleteOtherReports(report.getReportId());
+            reportRepository.deleteOtherReports(Report.SALES_ROLLUP, report.getReportId());
+        });
+        snapshotThroughOrderId = through;
+        snapshotCancellations = cancelled;
+        log.info("Sales rollup snapshot saved: {} rows through order {}", rows.size(), through);
+        return true;
+    }
+    
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Failed to save sales rollup snapshot", e);
+        }
+    }
+    
+    // 最新のスナップショットを読み込み、それより後の受注明細だけを加算する
+    // スナップショット後にキャンセルされた、スナップショットに含まれる受注は差し引く
+    private void restore() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            categoryRepository.findAll().forEach(category -> categoryNames.put(category.getCategoryId(), category.getName()));
+            supplierRepository.findAll().forEach(supplier -> supplierNames.put(supplier.getSupplierId(), supplier.getCompanyName()));
+            Report latest = reportRepository.findFirstByTypeOrderByReportIdDesc(Report.SALES_ROLLUP).orElse(null);
+            long after = 0L;
+            if (latest != null) {
+                try (Stream<SoldProductView> rows = soldProductViewRepository.streamByReportId(latest.getReportId())) {
+                    rows.forEach(this::load);
+                }
+                after = latest.getThroughOrderId();
+                try (Stream<SalesLineRow> lines = orderDetailRepository.streamSalesLinesChangedSince(
+                        after, CustomerOrder.Status.CANCELLED, latest.getTakenAt())) {
+                    lines.forEach(line -> replay(line, -1));
+                }
+            }
+            snapshotThroughOrderId = after;
+            throughOrderId.set(after);
+            try (Stream<SalesLineRow> lines = orderDetailRepository.streamSalesLinesAfter(after, CustomerOrder.Status.CANCELLED)) {
+                lines.forEach(line -> replay(line, 1));
+            }
+        });
+        if (!cells.isEmpty()) {
+            log.info("Sales rollup restored: {} product-day cells through order {}", cells.size(), throughOrderId.get());
+        }
+    }
+    
+    private void load(SoldProductView row) {
+        products.putIfAbsent(row.getProductId(), new ProductInfo(row.getProductName(), row.getCategoryId(), row.getSupplierId()));
+        Cell cell = cell(row.getProductId(), row.getSalesDate(), row.getCategoryId(), row.getSupplierId());
+        cell.quantity.add(row.getQuantity());
+        cell.revenueCents.add(toCents(row.getRevenue()));
+        cell.costCents.add(toCents(row.getCost()));
+        entityManager.detach(row);
+    }
+    
+    private void replay(SalesLineRow line, int sign) {
+        ProductInfo info = new ProductInfo(line.getProductName(), line.getCategoryId(), line.getSupplierId());
+        products.put(line.getProductId(), info);
+        add(line.getProductId(), line.getOrderDate().toLocalDate(), info, sign * line.getQuantity(), line.getUnitPrice(),
+                line.getDiscount(), line.getUnitCost());
+        if (sign > 0) {
+            throughOrderId.accumulateAndGet(line.getOrderId(), Math::max);
+        }
+    }
+    
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
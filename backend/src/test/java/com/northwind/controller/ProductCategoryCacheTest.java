@@ -0,0 +1,110 @@
+package com.northwind.controller;
+
+import com.northwind.dto.CategorySummaryDto;
+import com.northwind.dto.ProductDto;
+import com.northwind.entity.Category;
+import com.northwind.entity.Product;
+import com.northwind.repository.CategoryRepository;
+import com.northwind.repository.ProductRepository;
+import com.northwind.service.ProductCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 商品DTOに埋め込まれたカテゴリ名が、カテゴリの更新後にキャッシュから古いまま返されないことを確認する
+@SpringBootTest(properties = {
+        "northwind.seed.mode=sample",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class ProductCategoryCacheTest {    
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    private Category category;
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(Category.builder().name("Cache Category").description("before").build());
+        product = productRepository.save(Product.builder()
+                .name("Cache Product")
+                .code("CACHE-" + category.getCategoryId())
+                .unitPrice(new BigDecimal("10.00"))
+                .unitsInStock(5)
+                .category(category)
+                .build());
+    }
+    
+    @Test
+    void renamingACategoryRefreshesCachedProductsAndTheirETag() throws Exception {
+        String productUrl = "/api/products/" + product.getProductId();
+        // 1回目でキャッシュに載せる
+        String before = mockMvc.perform(get(productUrl))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.category.name").value("Cache Category"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(productCache.get(product.getProductId())).isNotNull();
+    
+        mockMvc.perform(put("/api/categories/" + category.getCategoryId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed Category\", \"description\": \"after\"}"))
+                .andExpect(status().isOk());
+    
+        String after = mockMvc.perform(get(productUrl))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.category.name").value("Renamed Category"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(after).isNotEqualTo(before);
+    
+        // 更新前のETagでは304にならない
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.category.name").value("Renamed Category"));
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, after))
+                .andExpect(status().isNotModified());
+    
+        mockMvc.perform(get("/api/products/batch?ids=" + product.getProductId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].product.category.name").value("Renamed Category"));
+    }
+    
+    @Test
+    void entriesLoadedBeforeACategoryUpdateAreNotCachedAfterIt() {
+        ProductDto stale = ProductDto.builder()
+                .productId(product.getProductId())
+                .category(new CategorySummaryDto(category.getCategoryId(), "Cache Category"))
+                .build();
+        productCache.invalidateCategoryAfterCommit(category.getCategoryId(), category.getVersion() + 1);
+    
+        // 更新前のカテゴリのバージョンで読み込んだ結果は、コミット後に書き戻されない
+        productCache.put(product.getProductId(), new ProductCache.Entry(product.getVersion(), category.getVersion(), stale));
+        assertThat(productCache.get(product.getProductId())).isNull();
+    
+        productCache.put(product.getProductId(), new ProductCache.Entry(product.getVersion(), category.getVersion() + 1, stale));
+        assertThat(productCache.get(product.getProductId())).isNotNull();
+    }
+}
@@ -0,0 +1,154 @@
+package com.northwind.controller;
+
+import com.northwind.entity.Category;
+import com.northwind.entity.Product;
+import com.northwind.entity.Supplier;
+import com.northwind.repository.CategoryRepository;
+import com.northwind.repository.ProductRepository;
+import com.northwind.repository.SupplierRepository;
+import com.northwind.service.ProductCache;
+import com.northwind.service.ProductSearchIndex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 商品一覧系エンドポイントのSQL文数が件数に比例しない（N+1がない）ことを確認する
+// 文数は SqlStatementMetricsFilter がリクエスト単位で記録する northwind.sql.request.statements から読む
+@SpringBootTest(properties = {
+        "northwind.seed.mode=sample",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class ProductListStatementCountTest {
+    
+    private static final int N = 20;
+    
+    private static final String SEEDED_NAME = "Seeded Product";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private SupplierRepository supplierRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    
+    private final List<Long> seededIds = new ArrayList<>();
+    
+    private Category sharedCategory;
+    
+    @Test
+    void listEndpointsIssueTheSameNumberOfStatementsForNAndTenNProducts() throws Exception {
+        sharedCategory = categoryRepository.save(Category.builder().name("Seeded").build());
+    
+        seed(0, N);
+        Map<String, Integer> small = measureAll();
+    
+        seed(N, 10 * N);
+        Map<String, Integer> large = measureAll();
+    
+        assertThat(small.values()).allMatch(count -> count > 0);
+        assertThat(large).isEqualTo(small);
+    }
+    
+    // from 番目から to 番目まで（to を含まない）の商品を登録する
+    // 商品ごとに別の仕入先、半数は別のカテゴリにして、関連の遅延ロードがあれば文数に現れるようにする
+    private void seed(int from, int to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = from; i < to; i++) {
+                Category category = i % 2 == 0
+                        ? sharedCategory
+                        : categoryRepository.save(Category.builder().name("Seeded Category " + i).build());
+                Supplier supplier = supplierRepository.save(Supplier.builder().companyName("Seeded Supplier " + i).build());
+                Product product = productRepository.save(Product.builder()
+                        .name(SEEDED_NAME + " " + i)
+                        .code("SEED-" + i)
+                        .unitPrice(new BigDecimal("10.00"))
+                        .unitCost(new BigDecimal("8.00"))
+                        // 3件に1件は在庫不足、5件に1件は論理削除済み
+                        .unitsInStock(i % 3 == 0 ? 1 : 100)
+                        .reorderLevel(10)
+                        .deleted(i % 5 == 0)
+                        .category(category)
+                        .supplier(supplier)
+                        .build());
+                seededIds.add(product.getProductId());
+            }
+        });
+        productSearchIndex.rebuild();
+    }
+    
+    private Map<String, Integer> measureAll() throws Exception {
+        String ids = seededIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String url : List.of(
+                "/api/products?size=1000",
+                "/api/products?fields=name,category,supplier&size=1000",
+                "/api/products/cursor?size=1000",
+                "/api/products/all",
+                "/api/products/active",
+                "/api/products/search?name=" + SEEDED_NAME + "&size=1000",
+                "/api/products/search?name=" + SEEDED_NAME + "&fields=name,category&size=1000",
+                "/api/products/search/cursor?name=" + SEEDED_NAME + "&size=1000",
+                "/api/products/category/" + sharedCategory.getCategoryId(),
+                "/api/products/category/" + sharedCategory.getCategoryId() + "?fields=name,supplier",
+                "/api/products/low-stock",
+                "/api/products/low-stock/paged?size=1000",
+                "/api/products/deleted",
+                "/api/products/batch?ids={ids}")) {
+            counts.put(url, measure(url.replace("{ids}", ids)));
+        }
+        return counts;
+    }
+    
+    // 1リクエストで発行されたSQL文数。関連はキャッシュから解決されないよう、毎回キャッシュを空にする
+    private int measure(String url) throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        productCache.clear();
+        double before = totalStatements();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return (int) (totalStatements() - before);
+    }
+    
+    private double totalStatements() {
+        return meterRegistry.find("northwind.sql.request.statements").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount)
+                .sum();
+    }
+}
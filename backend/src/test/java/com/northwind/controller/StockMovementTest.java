@@ -0,0 +1,125 @@
+package com.northwind.controller;
+
+import com.northwind.entity.Product;
+import com.northwind.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 在庫移動（POST /api/products/stock-movements）の差分更新と、1行でも適用できない場合の全体の取り消しを確認する
+@SpringBootTest(properties = {
+        "northwind.seed.mode=sample",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class StockMovementTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Test
+    void pickingBelowZeroIsRejectedAndChangesNoRows() throws Exception {
+        Product first = product("PICK-1", 10, 5, false);
+        Product second = product("PICK-2", 3, 5, false);
+    
+        move("PICK", first, 4, second, 4)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.rejection.productId").value(second.getProductId()));
+    
+        // 先に適用できた行も取り消され、バージョンも進まない
+        assertUnchanged(first);
+        assertUnchanged(second);
+    }
+    
+    @Test
+    void receivingPastTheStockLimitIsRejected() throws Exception {
+        Product product = product("RECEIVE", Integer.MAX_VALUE - 5, 5, false);
+    
+        move("RECEIVE", product, 10)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.rejection.productId").value(product.getProductId()));
+        assertUnchanged(product);
+    }
+    
+    @Test
+    void aMovementTouchingADeletedProductIsNotFoundAndRolledBack() throws Exception {
+        Product active = product("ACTIVE", 10, 5, false);
+        Product deleted = product("DELETED", 10, 5, true);
+    
+        move("RECEIVE", active, 5, deleted, 5)
+                .andExpect(status().isNotFound());
+        assertUnchanged(active);
+        assertUnchanged(deleted);
+    }
+    
+    @Test
+    void movementsRecomputeLowStockAndStockDeficit() throws Exception {
+        Product product = product("LOW", 10, 5, false);
+        assertThat(reload(product).getLowStock()).isFalse();
+    
+        move("PICK", product, 7)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines[0].unitsInStock").value(3));
+        Product picked = reload(product);
+        assertThat(picked.getLowStock()).isTrue();
+        assertThat(picked.getStockDeficit()).isEqualTo(2);
+    
+        move("RECEIVE", product, 20)
+                .andExpect(status().isOk());
+        Product received = reload(product);
+        assertThat(received.getUnitsInStock()).isEqualTo(23);
+        assertThat(received.getLowStock()).isFalse();
+        assertThat(received.getStockDeficit()).isEqualTo(-18);
+    }
+    
+    private Product product(String code, int unitsInStock, int reorderLevel, boolean deleted) {
+        return productRepository.save(Product.builder()
+                .name("Stock Test " + code)
+                .code("STOCK-" + code)
+                .unitPrice(new BigDecimal("10.00"))
+                .unitsInStock(unitsInStock)
+                .reorderLevel(reorderLevel)
+                .deleted(deleted)
+                .build());
+    }
+    
+    private Product reload(Product product) {
+        return productRepository.findById(product.getProductId()).orElseThrow();
+    }
+    
+    private void assertUnchanged(Product product) {
+        Product current = reload(product);
+        assertThat(current.getUnitsInStock()).isEqualTo(product.getUnitsInStock());
+        assertThat(current.getVersion()).isEqualTo(product.getVersion());
+    }
+    
+    // products と quantities を交互に並べる（product, quantity, product, quantity, ...）
+    private ResultActions move(String type, Object... productsAndQuantities) throws Exception {
+        StringBuilder body = new StringBuilder("{\"type\": \"" + type + "\", \"lines\": [");
+        for (int i = 0; i < productsAndQuantities.length; i += 2) {
+            if (i > 0) {
+                body.append(", ");
+            }
+            body.append("{\"productId\": ").append(((Product) productsAndQuantities[i]).getProductId())
+                    .append(", \"quantity\": ").append(productsAndQuantities[i + 1]).append("}");
+        }
+        body.append("]}");
+        return mockMvc.perform(post("/api/products/stock-movements")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString()));
+    }
+}
@@ -0,0 +1,143 @@
+package com.northwind.service;
+
+import com.northwind.dto.OrderDto;
+import com.northwind.dto.OrderRequestDto;
+import com.northwind.entity.CustomerOrder;
+import com.northwind.entity.Product;
+import com.northwind.exception.InsufficientStockException;
+import com.northwind.exception.OrderQueueFullException;
+import com.northwind.repository.CustomerOrderRepository;
+import com.northwind.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 受注の取り込み（バッチでの在庫引き当て・キャンセル・停止時のキューの書き出し）の振る舞いを確認する
+@SpringBootTest(properties = {
+        "northwind.seed.mode=sample",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class OrderIngestionTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CustomerOrderRepository customerOrderRepository;
+    
+    @Test
+    void onlyOrdersThatNoLongerFitAreRejectedWhenAProductRunsOutMidBatch() {
+        Product scarce = product("SCARCE", 5);
+        Product plenty = product("PLENTY", 100);
+    
+        // 受付時の検証はそれぞれ通るが、バッチ全体では scarce が足りない
+        List<CustomerOrder> orders = List.of(
+                orderService.prepareOrder(request(line(scarce, 3), line(plenty, 1))),
+                orderService.prepareOrder(request(line(scarce, 3), line(plenty, 1))),
+                orderService.prepareOrder(request(line(plenty, 2))),
+                orderService.prepareOrder(request(line(scarce, 2))));
+        List<OrderService.OrderResult> results = orderService.commitBatch(orders);
+    
+        assertThat(results.get(0).order()).isNotNull();
+        assertThat(results.get(1).rejection()).isInstanceOf(InsufficientStockException.class);
+        assertThat(results.get(2).order()).isNotNull();
+        assertThat(results.get(3).order()).isNotNull();
+    
+        // 拒否した受注の plenty の引き当ては戻り、受け付けた受注は登録されている
+        assertThat(unitsInStock(scarce)).isZero();
+        assertThat(unitsInStock(plenty)).isEqualTo(97);
+        for (int i : List.of(0, 2, 3)) {
+            assertThat(customerOrderRepository.findById(results.get(i).order().getCustomerOrderId())).isPresent();
+        }
+    }
+    
+    @Test
+    void cancellingReturnsStockOnceAndASecondCancelConflicts() throws Exception {
+        Product product = product("CANCEL", 10);
+        OrderDto order = orderService.commitBatch(List.of(
+                orderService.prepareOrder(request(line(product, 4))))).get(0).order();
+        assertThat(unitsInStock(product)).isEqualTo(6);
+    
+        mockMvc.perform(post("/api/orders/" + order.getCustomerOrderId() + "/cancel"))
+                .andExpect(status().isOk());
+        assertThat(unitsInStock(product)).isEqualTo(10);
+        assertThat(customerOrderRepository.findById(order.getCustomerOrderId()).orElseThrow().getStatus())
+                .isEqualTo(CustomerOrder.Status.CANCELLED);
+    
+        // 2回目は状態の競合として拒否し、在庫は二重に戻さない
+        mockMvc.perform(post("/api/orders/" + order.getCustomerOrderId() + "/cancel"))
+                .andExpect(status().isConflict());
+        assertThat(unitsInStock(product)).isEqualTo(10);
+    }
+    
+    @Test
+    void stoppingThePipelineCommitsOrdersStillWaitingInTheQueue() throws Exception {
+        Product product = product("DRAIN", 50);
+        // 1バッチ3件・linger を長めにして、停止時点で未コミットの受注（最後の端数のバッチ）が残るようにする
+        OrderIngestionPipeline pipeline = new OrderIngestionPipeline(orderService, new SimpleMeterRegistry(), 100, 3, 500);
+        pipeline.start();
+    
+        List<CompletableFuture<OrderDto>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(pipeline.submit(request(line(product, 1))));
+        }
+        assertThat(futures).anyMatch(future -> !future.isDone());
+    
+        pipeline.stop();
+    
+        for (CompletableFuture<OrderDto> future : futures) {
+            OrderDto order = future.get(1, TimeUnit.SECONDS);
+            assertThat(customerOrderRepository.findById(order.getCustomerOrderId())).isPresent();
+        }
+        assertThat(unitsInStock(product)).isEqualTo(40);
+        // 停止後は受け付けない
+        assertThatThrownBy(() -> pipeline.submit(request(line(product, 1))))
+                .isInstanceOf(OrderQueueFullException.class);
+    }
+    
+    private Product product(String code, int unitsInStock) {
+        return productRepository.save(Product.builder()
+                .name("Order Test " + code)
+                .code("ORDER-" + code)
+                .unitPrice(new BigDecimal("10.00"))
+                .unitCost(new BigDecimal("8.00"))
+                .unitsInStock(unitsInStock)
+                .build());
+    }
+    
+    private int unitsInStock(Product product) {
+        return productRepository.findById(product.getProductId()).orElseThrow().getUnitsInStock();
+    }
+    
+    private static OrderRequestDto.Line line(Product product, int quantity) {
+        return new OrderRequestDto.Line(product.getProductId(), quantity, null);
+    }
+    
+    private static OrderRequestDto request(OrderRequestDto.Line... lines) {
+        return OrderRequestDto.builder()
+                .customerId(1L)
+                .lines(List.of(lines))
+                .build();
+    }
+}
@@ -48,7 +48,7 @@ const CategoryDashboard: React.FC = () => {
       setLoading(true);
       setError(null);
       
-      const data = await categoryService.getAllCategories();
+      const data = await categoryService.getAllCategories(true);
       console.log('Categories loaded:', data.length);
       
       setCategories(data);
@@ -178,6 +178,9 @@ const CategoryDashboard: React.FC = () => {
     { field: 'name', headerName: 'Category Name', flex: 1 },
     { field: 'description', headerName: 'Description', flex: 1 },
     { field: 'productCount', headerName: 'Products', width: 120, type: 'number' },
+    { field: 'activeProductCount', headerName: 'Active', width: 100, type: 'number' },
+    { field: 'discontinuedProductCount', headerName: 'Discontinued', width: 120, type: 'number' },
+    { field: 'lowStockProductCount', headerName: 'Low Stock', width: 110, type: 'number' },
     {
       field: 'actions',
       headerName: 'Actions',
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   Box,
   Card,
@@ -20,9 +20,12 @@ import {
 } from '@mui/material';
 import { DataGrid, GridColDef, GridRowParams } from '@mui/x-data-grid';
 import { Search, Refresh, Warning, Add, Visibility, Edit, Delete } from '@mui/icons-material';
-import { Product, productService, DeleteResponse } from '../services/api';
+import { Product, productService, DeleteResponse, ProductChangeEvent, subscribeToProductChanges } from '../services/api';
 import ProductDetailDialog from './ProductDetailDialog';
 
+const REFETCH_DELAY_MS = 100;
+const REFETCH_CHUNK_SIZE = 500;
+
 const ProductDashboard: React.FC = () => {
   const [products, setProducts] = useState<Product[]>([]);
   const [filteredProducts, setFilteredProducts] = useState<Product[]>([]);
@@ -82,8 +85,87 @@ const ProductDashboard: React.FC = () => {
     }
   };
 
+  const isLowStock = (product: Product) => product.unitsInStock <= product.reorderLevel;
+
+  // 一覧を再取得せずに、変更のあった商品だけを反映する
+  const upsertProducts = (changed: Product[]) => {
+    const upsert = (list: Product[], items: Product[]) => {
+      const next = [...list];
+      items.forEach(product => {
+        const index = next.findIndex(p => p.productId === product.productId);
+        if (index < 0) {
+          next.push(product);
+        } else {
+          next[index] = product;
+        }
+      });
+      return next;
+    };
+    const lowStock = changed.filter(isLowStock);
+    const noLongerLow = new Set(changed.filter(p => !isLowStock(p)).map(p => p.productId));
+    setProducts(prev => upsert(prev, changed));
+    setLowStockProducts(prev => upsert(prev.filter(p => !noLongerLow.has(p.productId)), lowStock));
+  };
+
+  const upsertProduct = (product: Product) => upsertProducts([product]);
+
+  const removeProducts = (productIds: number[]) => {
+    const removed = new Set(productIds);
+    setProducts(prev => prev.filter(p => !removed.has(p.productId)));
+    setLowStockProducts(prev => prev.filter(p => !removed.has(p.productId)));
+  };
+
+  const removeProduct = (productId: number) => removeProducts([productId]);
+
+  // 一括復元・在庫移動・受注のイベントには商品本体が含まれないため、
+  // 短い間隔で届いたIDをまとめて /products/batch で取得する
+  const pendingIds = useRef<Set<number>>(new Set());
+  const refetchTimer = useRef<ReturnType<typeof setTimeout> | null>(null);
+
+  const refetchPending = async () => {
+    refetchTimer.current = null;
+    const ids = Array.from(pendingIds.current);
+    pendingIds.current = new Set();
+    for (let i = 0; i < ids.length; i += REFETCH_CHUNK_SIZE) {
+      const batch = await productService.getProductsByIds(ids.slice(i, i + REFETCH_CHUNK_SIZE));
+      upsertProducts(batch.items.filter(item => item.found && item.product).map(item => item.product as Product));
+      removeProducts(batch.notFound);
+    }
+  };
+
+  const scheduleRefetch = (productId: number) => {
+    pendingIds.current.add(productId);
+    if (refetchTimer.current === null) {
+      refetchTimer.current = setTimeout(() => {
+        refetchPending().catch(err => console.error('Error refetching changed products:', err));
+      }, REFETCH_DELAY_MS);
+    }
+  };
+
+  const applyProductChange = async (event: ProductChangeEvent) => {
+    if (event.type === 'RELOAD') {
+      await loadProducts();
+    } else if (event.type === 'DELETED' && event.productId) {
+      removeProduct(event.productId);
+    } else if (event.product) {
+      upsertProduct(event.product);
+    } else if (event.productId) {
+      scheduleRefetch(event.productId);
+    }
+  };
+
   useEffect(() => {
     loadProducts();
+    const unsubscribe = subscribeToProductChanges(event => {
+      applyProductChange(event).catch(err => console.error('Error applying product change:', err));
+    });
+    return () => {
+      unsubscribe();
+      if (refetchTimer.current !== null) {
+        clearTimeout(refetchTimer.current);
+      }
+    };
+    // eslint-disable-next-line react-hooks/exhaustive-deps
   }, []);
 
   useEffect(() => {
@@ -282,7 +364,7 @@ const ProductDashboard: React.FC = () => {
           message: response.message || 'Product deleted successfully',
           severity: 'success'
         });
-        await loadProducts(); // Reload the product list
+        removeProduct(productToDelete.productId);
       }
     } catch (err) {
       console.error('Error deleting product:', err);
@@ -300,7 +382,7 @@ const ProductDashboard: React.FC = () => {
   };
 
   const handleSaveProduct = async (savedProduct: Product) => {
-    await loadProducts(); // Reload the product list
+    upsertProduct(savedProduct);
   };
 
   const handleCloseSnackbar = () => {
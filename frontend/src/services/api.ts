@@ -38,6 +38,9 @@ export interface Category {
   name: string;
   description: string;
   productCount?: number;
+  activeProductCount?: number;
+  discontinuedProductCount?: number;
+  lowStockProductCount?: number;
 }
 
 export interface PageResponse<T> {
@@ -53,6 +56,39 @@ export interface DeleteResponse {
   error?: string;
 }
 
+export interface ProductBatchResponse {
+  items: {
+    productId: number;
+    found: boolean;
+    version?: number;
+    product?: Product;
+  }[];
+  notFound: number[];
+}
+
+export type ProductChangeType = 'CREATED' | 'UPDATED' | 'DELETED' | 'RESTORED' | 'RELOAD';
+
+export interface ProductChangeEvent {
+  sequence: number;
+  type: ProductChangeType;
+  productId?: number;
+  version?: number;
+  product?: Product;
+  occurredAt: string;
+}
+
+// Server-Sent Events で商品の変更を購読する（切断時はEventSourceがLast-Event-IDで自動再開）
+export const subscribeToProductChanges = (onEvent: (event: ProductChangeEvent) => void): (() => void) => {
+  const source = new EventSource(`${API_BASE_URL}/products/changes`);
+  const types: ProductChangeType[] = ['CREATED', 'UPDATED', 'DELETED', 'RESTORED', 'RELOAD'];
+  types.forEach(type => {
+    source.addEventListener(type, (message) => {
+      onEvent(JSON.parse((message as MessageEvent).data));
+    });
+  });
+  return () => source.close();
+};
+
 export const productService = {
   getAllProducts: async (): Promise<Product[]> => {
     const response = await api.get('/products/all');
@@ -69,6 +105,12 @@ export const productService = {
     return response.data;
   },
 
+  // 複数IDをまとめて取得する（サーバー側の上限 northwind.products.batch.max-ids 以内で呼ぶ）
+  getProductsByIds: async (ids: number[]): Promise<ProductBatchResponse> => {
+    const response = await api.post('/products/batch', ids);
+    return response.data;
+  },
+
   getActiveProducts: async (): Promise<Product[]> => {
     const response = await api.get('/products/active');
     return response.data;
@@ -125,8 +167,8 @@ export const productService = {
 };
 
 export const categoryService = {
-  getAllCategories: async (): Promise<Category[]> => {
-    const response = await api.get('/categories');
+  getAllCategories: async (breakdown: boolean = false): Promise<Category[]> => {
+    const response = await api.get(`/categories?breakdown=${breakdown}`);
     return response.data;
   },
 